@@ -0,0 +1,184 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xmldb.api.base.XMLDBException;
+
+/**
+ * Measures the URI dispatch of a {@link DatabaseRegistry} depending on the number of registered
+ * databases, the position of the accepting database and the dispatch cache, both uncontended and
+ * while other threads register and deregister databases concurrently. The groups run lookup and
+ * churn threads at read/write ratios of 15:1, 3:1 and 1:1, reporting the lookup and churn
+ * throughput of each group separately, so that the lookups can be compared under increasing write
+ * contention.
+ * <p>
+ * The number of threads of the other benchmarks is a run option, for example
+ * {@code ./gradlew jmh -PjmhIncludes=DatabaseDispatchBenchmark -PjmhThreads=4 -PjmhFork=2}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DatabaseDispatchBenchmark {
+  private static final String URI = "xmldb:testdatabase:testcollection";
+
+  @Param({"1", "10", "100", "1000"})
+  int drivers;
+
+  @Param({"first", "middle", "last"})
+  String position;
+
+  @Param({"0", "1024"})
+  int cacheSize;
+
+  DatabaseRegistry registry;
+
+  @Setup
+  public void up() throws XMLDBException {
+    registry = new DatabaseRegistry();
+    registry.setDispatchCacheSize(cacheSize);
+    final int accepting = switch (position) {
+      case "first" -> 0;
+      case "middle" -> drivers / 2;
+      case "last" -> drivers - 1;
+      default -> throw new IllegalArgumentException("Unknown position: " + position);
+    };
+    for (int i = 0; i < drivers; i++) {
+      registry.registerDatabase(new TestDatabase(i == accepting, 0));
+    }
+  }
+
+  @TearDown
+  public void down() {
+    List.copyOf(registry.getDatabases()).forEach(registry::deregisterDatabase);
+  }
+
+  @State(Scope.Thread)
+  public static class ChurnState {
+    final List<TestDatabase> databases = new ArrayList<>();
+
+    @Setup
+    public void up() {
+      for (int i = 0; i < 8; i++) {
+        databases.add(new TestDatabase());
+      }
+    }
+  }
+
+  @Benchmark
+  public void getCollection(Blackhole bh) throws XMLDBException {
+    bh.consume(registry.getCollection(URI));
+  }
+
+  @Benchmark
+  public void registerDeregister(ChurnState churn) throws XMLDBException {
+    churn(churn);
+  }
+
+  @Benchmark
+  @Group("readMostly")
+  @GroupThreads(15)
+  public void readMostlyLookup(Blackhole bh) throws XMLDBException {
+    bh.consume(registry.getCollection(URI));
+  }
+
+  @Benchmark
+  @Group("readMostly")
+  @GroupThreads(1)
+  public void readMostlyChurn(ChurnState churn) throws XMLDBException {
+    churn(churn);
+  }
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(3)
+  public void readWriteLookup(Blackhole bh) throws XMLDBException {
+    bh.consume(registry.getCollection(URI));
+  }
+
+  @Benchmark
+  @Group("readWrite")
+  @GroupThreads(1)
+  public void readWriteChurn(ChurnState churn) throws XMLDBException {
+    churn(churn);
+  }
+
+  @Benchmark
+  @Group("writeHeavy")
+  @GroupThreads(2)
+  public void writeHeavyLookup(Blackhole bh) throws XMLDBException {
+    bh.consume(registry.getCollection(URI));
+  }
+
+  @Benchmark
+  @Group("writeHeavy")
+  @GroupThreads(2)
+  public void writeHeavyChurn(ChurnState churn) throws XMLDBException {
+    churn(churn);
+  }
+
+  /**
+   * Registers and deregisters a batch of non accepting databases, each of them rebuilding the
+   * dispatch index snapshot of all registered databases.
+   */
+  private void churn(ChurnState churn) throws XMLDBException {
+    for (TestDatabase database : churn.databases) {
+      registry.registerDatabase(database);
+    }
+    for (TestDatabase database : churn.databases) {
+      registry.deregisterDatabase(database);
+    }
+  }
+}
@@ -40,11 +40,24 @@
 package org.xmldb.api;
 
 import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
 
 import org.xmldb.api.base.Collection;
 import org.xmldb.api.base.Database;
 
 public class TestDatabase implements Database {
+  private final boolean accepting;
+  private final long latencyNanos;
+
+  public TestDatabase() {
+    this(false, 0);
+  }
+
+  public TestDatabase(boolean accepting, long latencyNanos) {
+    this.accepting = accepting;
+    this.latencyNanos = latencyNanos;
+  }
+
   @Override
   public String getName() {
     return "testdb";
@@ -52,12 +65,15 @@ public class TestDatabase implements Database {
 
   @Override
   public Collection getCollection(String uri, Properties info) {
+    if (latencyNanos > 0) {
+      LockSupport.parkNanos(latencyNanos);
+    }
     return null;
   }
 
   @Override
   public boolean acceptsURI(String uri) {
-    return false;
+    return accepting;
   }
 
   @Override
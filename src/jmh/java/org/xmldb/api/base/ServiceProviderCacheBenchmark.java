@@ -0,0 +1,258 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xmldb.api.base.ServiceProviderCache.ProviderRegistry;
+import org.xmldb.api.modules.CollectionManagementService;
+import org.xmldb.api.modules.TransactionService;
+import org.xmldb.api.modules.XPathQueryService;
+import org.xmldb.api.modules.XQueryService;
+import org.xmldb.api.modules.XUpdateQueryService;
+
+/**
+ * Compares reading the registered providers of a service cache on each lookup under a
+ * {@link StampedLock}, as done before the providers were published as an immutable snapshot, with
+ * reading the snapshot, using 1, 8 and 64 concurrent threads. Both scan the providers on every
+ * lookup, so that the difference is the cost of reading them. The lookups of the
+ * {@link ServiceProviderCache} itself, which resolves each service type once, as well as the first
+ * lookup on a new cache are measured in addition.
+ */
+public class ServiceProviderCacheBenchmark {
+  private static final Consumer<ProviderRegistry> SERVICES = registry -> {
+    registry.add(CollectionManagementService.class, () -> null);
+    registry.add(TransactionService.class, () -> null);
+    registry.add(XPathQueryService.class, () -> null);
+    registry.add(XUpdateQueryService.class, () -> null);
+    registry.add(XQueryService.class, () -> null);
+  };
+
+  @State(Scope.Benchmark)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public abstract static class Lookups {
+    ServiceProvider cache;
+    ServiceProvider snapshot;
+    ServiceProvider stampedLock;
+
+    @Setup
+    public void up() {
+      cache = ServiceProviderCache.withRegistered(SERVICES);
+      snapshot = new SnapshotServiceProvider(SERVICES);
+      stampedLock = new StampedLockServiceProvider(SERVICES);
+    }
+
+    @Benchmark
+    public void snapshotLookup(Blackhole bh) {
+      bh.consume(snapshot.hasService(XQueryService.class));
+    }
+
+    @Benchmark
+    public void stampedLockLookup(Blackhole bh) {
+      bh.consume(stampedLock.hasService(XQueryService.class));
+    }
+
+    @Benchmark
+    public void cacheLookup(Blackhole bh) {
+      bh.consume(cache.hasService(XQueryService.class));
+    }
+
+    @Benchmark
+    public void cacheFirstLookup(Blackhole bh) {
+      bh.consume(ServiceProviderCache.withRegistered(SERVICES).hasService(XQueryService.class));
+    }
+
+    @Benchmark
+    public void stampedLockFirstLookup(Blackhole bh) {
+      bh.consume(new StampedLockServiceProvider(SERVICES).hasService(XQueryService.class));
+    }
+  }
+
+  @Threads(1)
+  public static class Threads1 extends Lookups {
+  }
+
+  @Threads(8)
+  public static class Threads8 extends Lookups {
+  }
+
+  @Threads(64)
+  public static class Threads64 extends Lookups {
+  }
+
+  /**
+   * Provider scanning the registered providers on each lookup, which are published as immutable
+   * snapshot like those of {@link ServiceProviderCache}.
+   */
+  static final class SnapshotServiceProvider implements ServiceProvider {
+    private static final VarHandle PROVIDERS;
+
+    static {
+      try {
+        PROVIDERS = MethodHandles.lookup().findVarHandle(SnapshotServiceProvider.class,
+            "providers", List.class);
+      } catch (ReflectiveOperationException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
+    private final Consumer<ProviderRegistry> initializer;
+    private volatile List<Class<?>> providers;
+
+    SnapshotServiceProvider(Consumer<ProviderRegistry> initializer) {
+      this.initializer = initializer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Class<?>> providers() {
+      final List<Class<?>> current = providers;
+      if (current != null) {
+        return current;
+      }
+      final List<Class<?>> created = new ArrayList<>();
+      initializer.accept(new ProviderRegistry() {
+        @Override
+        public <S extends Service> void add(Class<S> serviceType,
+            Supplier<? extends S> serviceSupplier) {
+          created.add(serviceType);
+        }
+      });
+      final List<Class<?>> snapshot = List.copyOf(created);
+      final Object witness = PROVIDERS.compareAndExchange(this, null, snapshot);
+      return witness == null ? snapshot : (List<Class<?>>) witness;
+    }
+
+    @Override
+    public <S extends Service> boolean hasService(Class<S> serviceType) {
+      for (Class<?> provider : providers()) {
+        if (provider.isAssignableFrom(serviceType)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public <S extends Service> Optional<S> findService(Class<S> serviceType) {
+      // only the lookup of the provider is measured
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Provider scanning the registered providers on each lookup, which are read under a
+   * {@link StampedLock} like those of {@link ServiceProviderCache} before they were published as
+   * immutable snapshot.
+   */
+  static final class StampedLockServiceProvider implements ServiceProvider {
+    private final StampedLock lock = new StampedLock();
+    private final Consumer<ProviderRegistry> initializer;
+    private List<Class<?>> providers;
+
+    StampedLockServiceProvider(Consumer<ProviderRegistry> initializer) {
+      this.initializer = initializer;
+    }
+
+    private List<Class<?>> providers() {
+      long stamp = lock.tryOptimisticRead();
+      if (stamp > 0 && lock.validate(stamp) && providers != null) {
+        return providers;
+      }
+      // fallback to locking read
+      stamp = lock.readLock();
+      try {
+        if (providers != null) {
+          return providers;
+        }
+      } finally {
+        lock.unlockRead(stamp);
+      }
+      // create write lock to initialize values
+      stamp = lock.writeLock();
+      try {
+        providers = new ArrayList<>();
+        initializer.accept(new ProviderRegistry() {
+          @Override
+          public <S extends Service> void add(Class<S> serviceType,
+              Supplier<? extends S> serviceSupplier) {
+            providers.add(serviceType);
+          }
+        });
+        return providers;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    @Override
+    public <S extends Service> boolean hasService(Class<S> serviceType) {
+      for (Class<?> provider : providers()) {
+        if (provider.isAssignableFrom(serviceType)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public <S extends Service> Optional<S> findService(Class<S> serviceType) {
+      // only the lookup of the provider is measured
+      return Optional.empty();
+    }
+  }
+}
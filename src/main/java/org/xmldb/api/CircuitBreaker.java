@@ -0,0 +1,153 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.xmldb.api.base.ErrorCodes.INVALID_URI;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_COLLECTION;
+import static org.xmldb.api.base.ErrorCodes.PERMISSION_DENIED;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.xmldb.api.CircuitBreakerStatus.State;
+import org.xmldb.api.base.XMLDBException;
+
+/**
+ * Tracks the health of a single registered database. After {@code failureThreshold} consecutive
+ * failures the circuit opens and the database is skipped until the open duration has passed. Then a
+ * single trial request is let through, which either closes the circuit again on success or reopens
+ * it on failure. If the trial does not end within the open duration, another trial is allowed.
+ * <p>
+ * Errors caused by the request rather than by the database, like
+ * {@link org.xmldb.api.base.ErrorCodes#PERMISSION_DENIED}, are not counted as failures. As the
+ * database has answered the request, they are recorded as success instead, which also ends a
+ * trial request.
+ */
+final class CircuitBreaker {
+  private static final Circuit CLOSED = new Circuit(State.CLOSED, 0);
+
+  private final AtomicReference<Circuit> circuit = new AtomicReference<>(CLOSED);
+  private final AtomicInteger failures = new AtomicInteger();
+
+  /**
+   * Returns whether a request may be sent to the database, which moves an open circuit to half
+   * open once the open duration has passed.
+   *
+   * @param policy the active policy
+   * @return {@code true} if the database is to be used, {@code false} if it is to be skipped
+   */
+  boolean allowRequest(CircuitBreakerPolicy policy) {
+    final Circuit current = circuit.get();
+    if (current.state == State.CLOSED) {
+      return true;
+    }
+    final long now = System.nanoTime();
+    return now - current.since >= policy.openDuration().toNanos()
+        && circuit.compareAndSet(current, new Circuit(State.HALF_OPEN, now));
+  }
+
+  /**
+   * Records a successful request closing the circuit.
+   */
+  void recordSuccess() {
+    if (failures.get() != 0) {
+      failures.set(0);
+    }
+    if (circuit.get() != CLOSED) {
+      circuit.set(CLOSED);
+    }
+  }
+
+  /**
+   * Records a request having failed with the given error, which is either recorded as failure or,
+   * if the error is caused by the request, as success.
+   *
+   * @param policy the active policy
+   * @param error the raised error
+   */
+  void recordFailure(CircuitBreakerPolicy policy, XMLDBException error) {
+    if (isFailure(error)) {
+      recordFailure(policy);
+    } else {
+      recordSuccess();
+    }
+  }
+
+  /**
+   * Records a failed request, which opens the circuit if the failure threshold is reached or if the
+   * request was a trial request.
+   *
+   * @param policy the active policy
+   */
+  void recordFailure(CircuitBreakerPolicy policy) {
+    final int count = failures.incrementAndGet();
+    final Circuit current = circuit.get();
+    if (current.state == State.HALF_OPEN
+        || current.state == State.CLOSED && count >= policy.failureThreshold()) {
+      circuit.compareAndSet(current, new Circuit(State.OPEN, System.nanoTime()));
+    }
+  }
+
+  /**
+   * Closes the circuit and forgets all recorded failures.
+   */
+  void reset() {
+    failures.set(0);
+    circuit.set(CLOSED);
+  }
+
+  State state() {
+    return circuit.get().state;
+  }
+
+  int consecutiveFailures() {
+    return failures.get();
+  }
+
+  static boolean isFailure(XMLDBException error) {
+    return switch (error.errorCode) {
+      case PERMISSION_DENIED, INVALID_URI, NO_SUCH_COLLECTION -> false;
+      default -> true;
+    };
+  }
+
+  private record Circuit(State state, long since) {
+  }
+}
@@ -0,0 +1,446 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.xmldb.api.base.ErrorCodes.UNKNOWN_ERROR;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.XMLDBException;
+
+/**
+ * {@link CollectionPool} keeps {@link Collection} instances retrieved through a
+ * {@link DatabaseRegistry}, by default the one of the {@link DatabaseManager}, for reuse, avoiding
+ * a new connection or session to be established for each request. Collections are pooled per URI
+ * and principal, given by the user and password used to retrieve them.
+ * <p>
+ * The collections handed out by the pool are leases on a pooled collection. Calling
+ * {@link Collection#close()} on a lease returns the underlying collection to the pool instead of
+ * closing it. The lease itself must not be used after it has been closed. Before being returned,
+ * the properties set through the lease are restored and the declared namespaces and variables of
+ * the query services retrieved through the lease are cleared. Collections whose state cannot be
+ * reset this way, for example as a service does not support clearing its variables, are closed
+ * instead of being reused.
+ * <p>
+ * Idle collections having exceeded the configured maximum idle time are closed whenever a
+ * collection is borrowed from or returned to the pool of the same URI and principal. Pools not
+ * being used anymore keep their idle collections until {@link #evictIdle()} is called, which also
+ * drops the pools of URIs and principals having neither idle nor leased collections, including
+ * their credentials.
+ *
+ * @since 3.1
+ */
+public final class CollectionPool implements AutoCloseable {
+  private final Config config;
+  private final CollectionValidator validator;
+  private final CollectionSource source;
+  private final Map<PoolKey, KeyedPool> pools;
+
+  private volatile boolean closed;
+
+  /**
+   * Creates a new pool with the given configuration, validating each borrowed collection using
+   * {@link Collection#isOpen()}.
+   *
+   * @param config the pool configuration
+   * @return the new collection pool
+   */
+  public static CollectionPool create(Config config) {
+    return create(config, Collection::isOpen);
+  }
+
+  /**
+   * Creates a new pool with the given configuration and validator being called for each idle
+   * collection before it is handed out again.
+   *
+   * @param config the pool configuration
+   * @param validator the validator called on borrow
+   * @return the new collection pool
+   */
+  public static CollectionPool create(Config config, CollectionValidator validator) {
+    return create(config, validator, DatabaseManager.getDefaultRegistry());
+  }
+
+  /**
+   * Creates a new pool with the given configuration, retrieving the collections from the given
+   * registry and validating each borrowed collection using {@link Collection#isOpen()}.
+   *
+   * @param config the pool configuration
+   * @param registry the registry used to retrieve new collections
+   * @return the new collection pool
+   */
+  public static CollectionPool create(Config config, DatabaseRegistry registry) {
+    return create(config, Collection::isOpen, registry);
+  }
+
+  /**
+   * Creates a new pool with the given configuration, retrieving the collections from the given
+   * registry and calling the given validator for each idle collection before it is handed out
+   * again.
+   *
+   * @param config the pool configuration
+   * @param validator the validator called on borrow
+   * @param registry the registry used to retrieve new collections
+   * @return the new collection pool
+   */
+  public static CollectionPool create(Config config, CollectionValidator validator,
+      DatabaseRegistry registry) {
+    return new CollectionPool(config, validator,
+        Objects.requireNonNull(registry, "registry")::getCollection);
+  }
+
+  CollectionPool(Config config, CollectionValidator validator, CollectionSource source) {
+    this.config = Objects.requireNonNull(config);
+    this.validator = Objects.requireNonNull(validator);
+    this.source = source;
+    this.pools = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Borrows a {@link Collection} for the given URI without authentication.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @return A leased {@link Collection} instance for the requested collection or {@code null} if
+   *         the collection could not be found.
+   * @throws XMLDBException with expected error codes as
+   *         {@link DatabaseRegistry#getCollection(String, String, String)}.
+   *         {@link org.xmldb.api.base.ErrorCodes#UNKNOWN_ERROR} if no collection became available
+   *         within the configured maximum wait time.
+   */
+  public Collection getCollection(final String uri) throws XMLDBException {
+    return getCollection(uri, null, null);
+  }
+
+  /**
+   * Borrows a {@link Collection} for the given URI and credentials.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param user The username to use for authentication to the database or {@code null} if the
+   *        database does not support authentication.
+   * @param password The password to use for authentication to the database or {@code null} if the
+   *        database does not support authentication.
+   * @return A leased {@link Collection} instance for the requested collection or {@code null} if
+   *         the collection could not be found.
+   * @throws XMLDBException with expected error codes as
+   *         {@link DatabaseRegistry#getCollection(String, String, String)}.
+   *         {@link org.xmldb.api.base.ErrorCodes#UNKNOWN_ERROR} if no collection became available
+   *         within the configured maximum wait time.
+   */
+  public Collection getCollection(final String uri, final String user, final String password)
+      throws XMLDBException {
+    if (closed) {
+      throw new XMLDBException(UNKNOWN_ERROR, "Collection pool closed");
+    }
+    final PoolKey key = new PoolKey(uri, user, password);
+    for (;;) {
+      final KeyedPool pool = pools.computeIfAbsent(key, KeyedPool::new);
+      if (pool.enter()) {
+        try {
+          return pool.borrow();
+        } finally {
+          pool.exit();
+        }
+      }
+      // the pool is being dropped, retry using a new one
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Closes all idle collections having exceeded the configured maximum idle time, including those
+   * of URIs and principals no longer borrowed, and drops the pools of URIs and principals having
+   * neither idle nor leased collections anymore.
+   */
+  public void evictIdle() {
+    pools.values().forEach(pool -> {
+      pool.evictIdle();
+      pool.retireIfUnused();
+    });
+  }
+
+  /**
+   * Returns the number of idle collections currently held by the pool.
+   *
+   * @return the number of idle collections
+   */
+  public int getIdleCount() {
+    return pools.values().stream().mapToInt(pool -> pool.idle.size()).sum();
+  }
+
+  int getPoolCount() {
+    return pools.size();
+  }
+
+  /**
+   * Closes the pool and all idle collections. Collections currently leased are closed as soon as
+   * they are returned.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    pools.values().forEach(KeyedPool::clear);
+    pools.clear();
+  }
+
+  /**
+   * Configuration of a {@link CollectionPool}.
+   *
+   * @param maxTotal the maximum number of collections per URI and principal, leased or idle
+   * @param maxIdle the maximum number of idle collections kept per URI and principal
+   * @param maxIdleTime the time after which idle collections are closed
+   * @param maxWait the maximum time to wait for a collection to become available
+   */
+  public record Config(int maxTotal, int maxIdle, Duration maxIdleTime, Duration maxWait) {
+    /**
+     * Validates the configuration values.
+     *
+     * @param maxTotal the maximum number of collections per URI and principal, leased or idle
+     * @param maxIdle the maximum number of idle collections kept per URI and principal
+     * @param maxIdleTime the time after which idle collections are closed
+     * @param maxWait the maximum time to wait for a collection to become available
+     */
+    public Config {
+      if (maxTotal <= 0) {
+        throw new IllegalArgumentException("maxTotal must be positive: " + maxTotal);
+      }
+      if (maxIdle < 0 || maxIdle > maxTotal) {
+        throw new IllegalArgumentException("maxIdle must be between 0 and maxTotal: " + maxIdle);
+      }
+      Objects.requireNonNull(maxIdleTime);
+      Objects.requireNonNull(maxWait);
+    }
+  }
+
+  /**
+   * Validates an idle {@link Collection} before it is handed out again.
+   */
+  @FunctionalInterface
+  public interface CollectionValidator {
+    /**
+     * Checks whether the given collection can still be used.
+     *
+     * @param collection the idle collection
+     * @return {@code true} if the collection is still usable, {@code false} otherwise
+     * @throws XMLDBException if the validation fails, which invalidates the collection
+     */
+    boolean isValid(Collection collection) throws XMLDBException;
+  }
+
+  @FunctionalInterface
+  interface CollectionSource {
+    Collection getCollection(String uri, String user, String password) throws XMLDBException;
+  }
+
+  record PoolKey(String uri, String user, String password) {
+    @Override
+    public String toString() {
+      return "PoolKey[uri=" + uri + ", user=" + user + "]";
+    }
+  }
+
+  record IdleCollection(Collection collection, long idleSince) {
+  }
+
+  final class KeyedPool {
+    private final PoolKey key;
+    private final Semaphore permits;
+    private final Deque<IdleCollection> idle;
+    private final AtomicInteger borrowing;
+
+    private volatile boolean retired;
+
+    KeyedPool(PoolKey key) {
+      this.key = key;
+      this.permits = new Semaphore(config.maxTotal());
+      this.idle = new ConcurrentLinkedDeque<>();
+      this.borrowing = new AtomicInteger();
+    }
+
+    /**
+     * Announces a borrow from this pool.
+     *
+     * @return {@code false} if the pool has been dropped and must not be used anymore
+     */
+    boolean enter() {
+      borrowing.incrementAndGet();
+      if (retired) {
+        borrowing.decrementAndGet();
+        return false;
+      }
+      return true;
+    }
+
+    void exit() {
+      borrowing.decrementAndGet();
+    }
+
+    /**
+     * Drops this pool if it has neither idle nor leased collections and is not being borrowed
+     * from. The pool is marked as retired before checking whether it is used, so that a concurrent
+     * borrow either sees the mark or is seen by the check.
+     */
+    synchronized void retireIfUnused() {
+      if (retired || !isUnused()) {
+        return;
+      }
+      retired = true;
+      if (isUnused()) {
+        pools.remove(key, this);
+      } else {
+        retired = false;
+      }
+    }
+
+    private boolean isUnused() {
+      // idle collections keep their permit, so all permits are only available if none is idle
+      return borrowing.get() == 0 && permits.availablePermits() == config.maxTotal();
+    }
+
+    Collection borrow() throws XMLDBException {
+      evictExpired(System.nanoTime());
+      IdleCollection candidate;
+      while ((candidate = idle.pollFirst()) != null) {
+        if (isExpired(candidate, System.nanoTime()) || !isValid(candidate.collection())) {
+          discard(candidate.collection());
+        } else {
+          return new PooledCollection(candidate.collection(), this::release);
+        }
+      }
+      acquire();
+      try {
+        final Collection collection = source.getCollection(key.uri(), key.user(), key.password());
+        if (collection == null) {
+          permits.release();
+          return null;
+        }
+        return new PooledCollection(collection, this::release);
+      } catch (XMLDBException | RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+    }
+
+    private void acquire() throws XMLDBException {
+      try {
+        if (!permits.tryAcquire(config.maxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+          throw new XMLDBException(UNKNOWN_ERROR, "Collection pool exhausted for: " + key.uri());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new XMLDBException(UNKNOWN_ERROR, "Interrupted while waiting for: " + key.uri(), e);
+      }
+    }
+
+    private boolean isValid(Collection collection) {
+      try {
+        return validator.isValid(collection);
+      } catch (XMLDBException e) {
+        return false;
+      }
+    }
+
+    private boolean isExpired(IdleCollection candidate, long now) {
+      return now - candidate.idleSince() >= config.maxIdleTime().toNanos();
+    }
+
+    void release(Collection collection, boolean reusable) {
+      final long now = System.nanoTime();
+      evictExpired(now);
+      if (closed || !reusable || idle.size() >= config.maxIdle()) {
+        discard(collection);
+        retireIfUnused();
+      } else {
+        idle.offerFirst(new IdleCollection(collection, now));
+        if (closed) {
+          // closed concurrently, after the closing thread has cleared the idle collections
+          clear();
+        }
+      }
+    }
+
+    /**
+     * Closes the expired idle collections, which are the least recently returned ones at the end
+     * of the idle deque.
+     */
+    private void evictExpired(long now) {
+      IdleCollection oldest;
+      while ((oldest = idle.peekLast()) != null && isExpired(oldest, now)) {
+        if (idle.removeLastOccurrence(oldest)) {
+          discard(oldest.collection());
+        }
+      }
+    }
+
+    void evictIdle() {
+      final long now = System.nanoTime();
+      for (IdleCollection candidate : idle) {
+        if (isExpired(candidate, now) && idle.remove(candidate)) {
+          discard(candidate.collection());
+        }
+      }
+    }
+
+    void clear() {
+      IdleCollection candidate;
+      while ((candidate = idle.pollFirst()) != null) {
+        discard(candidate.collection());
+      }
+    }
+
+    private void discard(Collection collection) {
+      try {
+        collection.close();
+      } catch (XMLDBException e) {
+        // the collection is dropped anyway
+      } finally {
+        permits.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.xmldb.api.DatabaseRegistry.DatabaseInfo;
+import org.xmldb.api.base.XmldbUri;
+
+/**
+ * Immutable snapshot of the registered databases used to dispatch a URI to the databases handling
+ * it. Databases registered with URI prefixes are looked up directly, all others need to be asked
+ * using {@link org.xmldb.api.base.Database#acceptsURI(XmldbUri)}.
+ * <p>
+ * Each snapshot holds its own bounded cache of already resolved URIs, which is therefore dropped
+ * together with the snapshot as soon as the registered databases change. The cache only keeps which
+ * databases without URI prefix accept a URI, never which database has handled it, so that every
+ * dispatch still tries the accepting databases in priority order.
+ */
+final class DatabaseIndex {
+  static final DatabaseIndex EMPTY = new DatabaseIndex(List.of(), Map.of(), List.of(), 0);
+
+  private final List<DatabaseInfo> databases;
+  private final Map<String, List<DatabaseInfo>> prefixed;
+  private final List<DatabaseInfo> unprefixed;
+  private final int maximumSize;
+  private final Map<XmldbUri, Resolution> resolved;
+
+  private DatabaseIndex(List<DatabaseInfo> databases, Map<String, List<DatabaseInfo>> prefixed,
+      List<DatabaseInfo> unprefixed, int maximumSize) {
+    this.databases = databases;
+    this.prefixed = prefixed;
+    this.unprefixed = unprefixed;
+    this.maximumSize = maximumSize;
+    this.resolved = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Creates a new index for the given databases keeping their priority order within each prefix.
+   *
+   * @param databases the registered databases
+   * @param maximumSize the maximum number of resolved URIs to be cached, {@code 0} disables the
+   *        cache
+   * @return the new index
+   */
+  static DatabaseIndex of(List<DatabaseInfo> databases, int maximumSize) {
+    final Map<String, List<DatabaseInfo>> prefixed = new HashMap<>();
+    final List<DatabaseInfo> unprefixed = new ArrayList<>();
+    for (DatabaseInfo info : databases) {
+      if (info.uriPrefixes().isEmpty()) {
+        unprefixed.add(info);
+      } else {
+        for (String uriPrefix : info.uriPrefixes()) {
+          prefixed.computeIfAbsent(uriPrefix, key -> new ArrayList<>()).add(info);
+        }
+      }
+    }
+    final Map<String, List<DatabaseInfo>> frozen = new HashMap<>();
+    prefixed.forEach((uriPrefix, infos) -> frozen.put(uriPrefix, List.copyOf(infos)));
+    return new DatabaseIndex(List.copyOf(databases), Map.copyOf(frozen), List.copyOf(unprefixed),
+        maximumSize);
+  }
+
+  /**
+   * Returns all registered databases in priority order.
+   *
+   * @return the registered databases
+   */
+  List<DatabaseInfo> databases() {
+    return databases;
+  }
+
+  /**
+   * Returns all databases registered for the given URI prefix.
+   *
+   * @param uriPrefix the URI prefix or {@code null}
+   * @return the databases handling the URI prefix, never {@code null}
+   */
+  List<DatabaseInfo> prefixed(String uriPrefix) {
+    if (uriPrefix == null) {
+      return List.of();
+    }
+    return prefixed.getOrDefault(uriPrefix, List.of());
+  }
+
+  /**
+   * Returns all databases without a URI prefix needing to be asked for each URI.
+   *
+   * @return the databases without URI prefix
+   */
+  List<DatabaseInfo> unprefixed() {
+    return unprefixed;
+  }
+
+  /**
+   * Returns the cached resolution for the given URI.
+   *
+   * @param uri the URI to look up
+   * @return the databases without URI prefix known to accept the URI, or {@code null} if the URI
+   *         has not been resolved yet
+   */
+  Resolution resolved(XmldbUri uri) {
+    if (maximumSize == 0 || uri == null) {
+      return null;
+    }
+    return resolved.get(uri);
+  }
+
+  /**
+   * Caches the resolution of the given URI.
+   *
+   * @param uri the resolved URI
+   * @param resolution the databases without URI prefix known to accept the URI
+   */
+  void resolve(XmldbUri uri, Resolution resolution) {
+    if (maximumSize == 0 || uri == null) {
+      return;
+    }
+    if (resolved.replace(uri, resolution) != null) {
+      // already cached, no room needed
+      return;
+    }
+    if (resolved.size() >= maximumSize) {
+      // make room by evicting an arbitrary entry
+      final Iterator<XmldbUri> keys = resolved.keySet().iterator();
+      if (keys.hasNext()) {
+        keys.next();
+        keys.remove();
+      }
+    }
+    resolved.put(uri, resolution);
+  }
+
+  /**
+   * Returns the number of currently cached resolutions.
+   *
+   * @return the number of cached URIs
+   */
+  int size() {
+    return resolved.size();
+  }
+
+  /**
+   * Returns the maximum number of cached resolutions.
+   *
+   * @return the maximum number of cached URIs
+   */
+  int maximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * The databases without URI prefix accepting a URI, as far as they have been asked. As the
+   * databases are asked lazily in priority order, only the first {@code probed} databases of
+   * {@link #unprefixed()} have been asked, of which {@code accepted} are those accepting the URI.
+   *
+   * @param accepted the databases accepting the URI in priority order
+   * @param probed the number of databases without URI prefix having been asked
+   */
+  record Resolution(List<DatabaseInfo> accepted, int probed) {
+    static final Resolution NONE = new Resolution(List.of(), 0);
+
+    /**
+     * Returns this resolution extended by the databases asked afterwards.
+     *
+     * @param found the additionally accepting databases in priority order
+     * @param probed the total number of databases having been asked
+     * @return the extended resolution
+     */
+    Resolution extend(List<DatabaseInfo> found, int probed) {
+      if (found.isEmpty()) {
+        return new Resolution(accepted, probed);
+      }
+      final List<DatabaseInfo> all = new ArrayList<>(accepted);
+      all.addAll(found);
+      return new Resolution(List.copyOf(all), probed);
+    }
+  }
+}
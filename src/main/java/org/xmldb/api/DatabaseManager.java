@@ -39,17 +39,16 @@
  */
 package org.xmldb.api;
 
-import static org.xmldb.api.base.ErrorCodes.INSTANCE_NAME_ALREADY_REGISTERED;
-import static org.xmldb.api.base.ErrorCodes.NO_SUCH_DATABASE;
-
-import java.util.Map;
+import java.time.Duration;
+import java.util.List;
 import java.util.Properties;
+import java.util.ServiceLoader;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.ConnectionOptions;
 import org.xmldb.api.base.Database;
 import org.xmldb.api.base.DatabaseAction;
 import org.xmldb.api.base.XMLDBException;
@@ -60,6 +59,14 @@ import org.xmldb.api.base.XMLDBException;
  * {@link DatabaseManager} is intended to be provided as a concrete implementation in a particular
  * programming language. Individual language mappings should define the exact syntax and semantics
  * of its use.
+ * <p>
+ * On initialization, the {@link DatabaseManager} registers all {@link Database} implementations
+ * provided through the {@link ServiceLoader} mechanism. Such databases are instantiated on their
+ * first use only, see {@link #loadDatabases(ClassLoader)} for details.
+ * <p>
+ * All static methods operate on a single process wide {@link DatabaseRegistry}, available through
+ * {@link #getDefaultRegistry()}. Applications needing isolated sets of databases, properties or
+ * dispatch settings can create their own {@link DatabaseRegistry} instances instead.
  */
 public final class DatabaseManager {
   /**
@@ -67,15 +74,47 @@ public final class DatabaseManager {
    */
   public static final String URI_PREFIX = "xmldb:";
 
-  private static final Map<String, String> properties = new ConcurrentHashMap<>();
-  private static final CopyOnWriteArrayList<DatabaseInfo> registeredDatabases =
-      new CopyOnWriteArrayList<>();
+  /**
+   * Defines the default maximum number of resolved URIs kept in the dispatch cache.
+   *
+   * @since 3.1
+   */
+  public static final int DEFAULT_DISPATCH_CACHE_SIZE =
+      DatabaseRegistry.DEFAULT_DISPATCH_CACHE_SIZE;
+
+  /**
+   * Defines the priority of databases registered without an explicit priority.
+   *
+   * @since 3.1
+   */
+  public static final int DEFAULT_PRIORITY = DatabaseRegistry.DEFAULT_PRIORITY;
+
+  private static final DatabaseRegistry DEFAULT_REGISTRY = new DatabaseRegistry();
+
+  static {
+    DEFAULT_REGISTRY.loadDatabases(Thread.currentThread().getContextClassLoader());
+  }
 
   private DatabaseManager() {}
 
+  /**
+   * Returns the process wide {@link DatabaseRegistry} all static methods of this class delegate
+   * to.
+   *
+   * @return the default registry
+   * @since 3.1
+   */
+  public static DatabaseRegistry getDefaultRegistry() {
+    return DEFAULT_REGISTRY;
+  }
+
   /**
    * Returns a set of all available {@link Database} implementations that have been registered with
-   * this {@link DatabaseManager}.
+   * this {@link DatabaseManager}. The set iterates the databases by descending priority and by
+   * registration order for the same priority. This is not necessarily the order the databases are
+   * probed for a URI, as the databases registered for the prefix of the URI are probed first.
+   * Provided databases not instantiated yet are returned as a placeholder, see
+   * {@link DatabaseRegistry#getDatabases()}.
    *
    * @return An array of {@link Database} instances. One for each {@link Database} registered with
    *         the {@link DatabaseManager}. If no {@link Database} instances exist then an empty set
@@ -83,7 +122,7 @@ public final class DatabaseManager {
    * @since 2.0
    */
   public static Set<Database> getDatabases() {
-    return registeredDatabases.stream().map(DatabaseInfo::database).collect(Collectors.toSet());
+    return DEFAULT_REGISTRY.getDatabases();
   }
 
   /**
@@ -95,7 +134,7 @@ public final class DatabaseManager {
    *         during the registration process.
    */
   public static void registerDatabase(final Database database) throws XMLDBException {
-    registerDatabase(database, null);
+    DEFAULT_REGISTRY.registerDatabase(database);
   }
 
   /**
@@ -109,9 +148,77 @@ public final class DatabaseManager {
    */
   public static void registerDatabase(final Database database, final DatabaseAction action)
       throws XMLDBException {
-    if (!registeredDatabases.addIfAbsent(new DatabaseInfo(database, action))) {
-      throw new XMLDBException(INSTANCE_NAME_ALREADY_REGISTERED);
-    }
+    DEFAULT_REGISTRY.registerDatabase(database, action);
+  }
+
+  /**
+   * Registers a new {@link Database} implementation with the {@link DatabaseManager}, along with
+   * the specified {@link DatabaseAction} and the URI prefixes the database handles.
+   * <p>
+   * Each URI prefix consists of the {@link #URI_PREFIX} followed by the database specific name and
+   * a colon character, for example {@code xmldb:vendordb:}. URIs starting with one of the given
+   * prefixes are dispatched to the database by a direct lookup without calling
+   * {@link Database#acceptsURI(XmldbUri)}. Databases registered without any prefix are asked using
+   * {@link Database#acceptsURI(XmldbUri)} after all matching prefixed databases have been tried.
+   *
+   * @param database The database instance to register.
+   * @param action The action to associate with the database upon registration.
+   * @param uriPrefixes The URI prefixes handled by the database, may be empty.
+   * @throws XMLDBException if the database instance is already registered or if an error occurs
+   *         during the registration process. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} if
+   *         one of the URI prefixes is not in a valid format.
+   * @since 3.1
+   */
+  public static void registerDatabase(final Database database, final DatabaseAction action,
+      final Set<String> uriPrefixes) throws XMLDBException {
+    DEFAULT_REGISTRY.registerDatabase(database, action, uriPrefixes);
+  }
+
+  /**
+   * Registers a new {@link Database} implementation with the {@link DatabaseManager}, along with
+   * the specified {@link DatabaseAction}, the URI prefixes the database handles and its dispatch
+   * priority.
+   * <p>
+   * Databases with a higher priority are probed before those with a lower priority, which allows
+   * specialized in-process databases to take precedence over remote or catch-all databases
+   * regardless of their registration order. Databases of the same priority are probed in
+   * registration order. The priority applies within the databases registered for the same URI
+   * prefix as well as within the databases without URI prefix, which are still asked after all
+   * matching prefixed databases.
+   *
+   * @param database The database instance to register.
+   * @param action The action to associate with the database upon registration.
+   * @param uriPrefixes The URI prefixes handled by the database, may be empty.
+   * @param priority The dispatch priority, {@link #DEFAULT_PRIORITY} for the default.
+   * @throws XMLDBException if the database instance is already registered or if an error occurs
+   *         during the registration process. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} if
+   *         one of the URI prefixes is not in a valid format.
+   * @since 3.1
+   */
+  public static void registerDatabase(final Database database, final DatabaseAction action,
+      final Set<String> uriPrefixes, final int priority) throws XMLDBException {
+    DEFAULT_REGISTRY.registerDatabase(database, action, uriPrefixes, priority);
+  }
+
+  /**
+   * Registers all {@link Database} implementations provided through the {@link ServiceLoader}
+   * mechanism using the given class loader, that are not already registered.
+   * <p>
+   * The databases are not instantiated while being registered. Instead the URI prefixes declared
+   * by the {@link DatabaseDriver} annotation of the provider class are used for the dispatch, so
+   * that a database is created on the first request for a URI it handles. Databases without
+   * declared URI prefixes are created on the first dispatch, as they need to be asked by
+   * {@link Database#acceptsURI(String)}. If the created database implements
+   * {@link DatabaseAction}, it is notified when being deregistered.
+   * <p>
+   * Databases provided this way must not register themselves with the {@link DatabaseManager}.
+   *
+   * @param classLoader the class loader used to locate the provided databases, or {@code null} for
+   *        the system class loader
+   * @since 3.1
+   */
+  public static void loadDatabases(final ClassLoader classLoader) {
+    DEFAULT_REGISTRY.loadDatabases(classLoader);
   }
 
   /**
@@ -121,13 +228,72 @@ public final class DatabaseManager {
    * @param database The {@link Database} instance to deregister.
    */
   public static void deregisterDatabase(final Database database) {
-    registeredDatabases.removeIf(info -> {
-      if (info.database.equals(database)) {
-        info.deregister();
-        return true;
-      }
-      return false;
-    });
+    DEFAULT_REGISTRY.deregisterDatabase(database);
+  }
+
+  /**
+   * Registers a listener receiving the timings of each URI dispatch to the registered databases.
+   * See {@link DispatchListener} for details.
+   *
+   * @param listener the listener to be added
+   * @since 3.1
+   */
+  public static void addDispatchListener(final DispatchListener listener) {
+    DEFAULT_REGISTRY.addDispatchListener(listener);
+  }
+
+  /**
+   * Removes a previously registered dispatch listener.
+   *
+   * @param listener the listener to be removed
+   * @since 3.1
+   */
+  public static void removeDispatchListener(final DispatchListener listener) {
+    DEFAULT_REGISTRY.removeDispatchListener(listener);
+  }
+
+  /**
+   * Returns the active circuit breaker policy.
+   *
+   * @return the circuit breaker policy or {@code null} if circuit breaking is disabled
+   * @since 3.1
+   */
+  public static CircuitBreakerPolicy getCircuitBreakerPolicy() {
+    return DEFAULT_REGISTRY.getCircuitBreakerPolicy();
+  }
+
+  /**
+   * Sets the policy used to track the health of each registered database. A database failing
+   * {@link CircuitBreakerPolicy#failureThreshold()} times in a row is skipped during the dispatch
+   * until {@link CircuitBreakerPolicy#openDuration()} has passed, after which a single trial
+   * request decides whether it is used again. If all databases accepting a URI are skipped, the
+   * dispatch fails with {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_DATABASE}.
+   * <p>
+   * Errors caused by the request itself, namely
+   * {@link org.xmldb.api.base.ErrorCodes#PERMISSION_DENIED},
+   * {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} and
+   * {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_COLLECTION}, are not counted as failures but
+   * as an answer of an available database, while runtime exceptions thrown by a database are
+   * counted as failures. Setting a policy resets the health of all registered databases. Circuit
+   * breaking is disabled by default.
+   *
+   * @param policy the circuit breaker policy or {@code null} to disable circuit breaking
+   * @since 3.1
+   */
+  public static void setCircuitBreakerPolicy(final CircuitBreakerPolicy policy) {
+    DEFAULT_REGISTRY.setCircuitBreakerPolicy(policy);
+  }
+
+  /**
+   * Returns the circuit breaker state of all registered databases in the order of
+   * {@link #getDatabases()}, that is by descending priority and by registration order for
+   * databases of the same priority.
+   *
+   * @return the circuit breaker status of each registered database
+   * @since 3.1
+   */
+  public static List<CircuitBreakerStatus> getCircuitBreakerStatus() {
+    return DEFAULT_REGISTRY.getCircuitBreakerStatus();
   }
 
   /**
@@ -150,7 +316,7 @@ public final class DatabaseManager {
    *         instance could not be found to handle the provided URI.
    */
   public static Collection getCollection(final String uri) throws XMLDBException {
-    return getCollection(uri, new Properties());
+    return DEFAULT_REGISTRY.getCollection(uri);
   }
 
   /**
@@ -178,14 +344,7 @@ public final class DatabaseManager {
    */
   public static Collection getCollection(final String uri, final String user, final String password)
       throws XMLDBException {
-    Properties info = new Properties();
-    if (user != null) {
-      info.put("user", user);
-    }
-    if (password != null) {
-      info.put("password", password);
-    }
-    return getCollection(uri, info);
+    return DEFAULT_REGISTRY.getCollection(uri, user, password);
   }
 
   /**
@@ -211,7 +370,29 @@ public final class DatabaseManager {
    */
   public static Collection getCollection(final String uri, final Properties info)
       throws XMLDBException {
-    return withDatabase(uri, database -> database.getCollection(uri, info));
+    return DEFAULT_REGISTRY.getCollection(uri, info);
+  }
+
+  /**
+   * Retrieves a {@link Collection} instance from the database for the given URI using the given
+   * typed connection options. See {@link #getCollection(String, Properties)} for the URI format.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param options The connection options
+   * @return A {@code Collection} instance for the requested collection or {@code null} if the
+   *         collection could not be found.
+   * @throws XMLDBException with expected error codes.
+   *         {@link org.xmldb.api.base.ErrorCodes#VENDOR_ERROR} for any vendor specific errors that
+   *         occur. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} If the URI is not in a valid
+   *         format. {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_DATABASE} If a {@link Database}
+   *         instance could not be found to handle the provided URI.
+   *         {@link org.xmldb.api.base.ErrorCodes#PERMISSION_DENIED} If the {@code username} and
+   *         {@code password} were not accepted by the database.
+   * @since 3.1
+   */
+  public static Collection getCollection(final String uri, final ConnectionOptions options)
+      throws XMLDBException {
+    return DEFAULT_REGISTRY.getCollection(uri, options);
   }
 
   /**
@@ -227,7 +408,142 @@ public final class DatabaseManager {
    *         instance could not be found to handle the provided URI.
    */
   public static String getConformanceLevel(final String uri) throws XMLDBException {
-    return withDatabase(uri, Database::getConformanceLevel);
+    return DEFAULT_REGISTRY.getConformanceLevel(uri);
+  }
+
+  /**
+   * Asynchronously retrieves a {@link Collection} instance from the database for the given URI
+   * using the executor returned by {@link #getAsyncExecutor()}.
+   * <p>
+   * This method is called when no authentication is necessary for the database.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @return A completion stage of the {@link Collection} instance for the requested collection or
+   *         {@code null} if the collection could not be found. The stage completes exceptionally
+   *         with the same {@link XMLDBException} as {@link #getCollection(String)} would throw.
+   * @since 3.1
+   */
+  public static CompletionStage<Collection> getCollectionAsync(final String uri) {
+    return DEFAULT_REGISTRY.getCollectionAsync(uri);
+  }
+
+  /**
+   * Asynchronously retrieves a {@link Collection} instance from the database for the given URI
+   * using the executor returned by {@link #getAsyncExecutor()}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param user The username to use for authentication to the database or {@code null} if the
+   *        database does not support authentication.
+   * @param password The password to use for authentication to the database or {@code null} if the
+   *        database does not support authentication.
+   * @return A completion stage of the {@link Collection} instance for the requested collection or
+   *         {@code null} if the collection could not be found. The stage completes exceptionally
+   *         with the same {@link XMLDBException} as
+   *         {@link #getCollection(String, String, String)} would throw.
+   * @since 3.1
+   */
+  public static CompletionStage<Collection> getCollectionAsync(final String uri,
+      final String user, final String password) {
+    return DEFAULT_REGISTRY.getCollectionAsync(uri, user, password);
+  }
+
+  /**
+   * Asynchronously retrieves a {@link Collection} instance from the database for the given URI
+   * using the executor returned by {@link #getAsyncExecutor()}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param info The database specific connection options
+   * @return A completion stage of the {@link Collection} instance for the requested collection or
+   *         {@code null} if the collection could not be found. The stage completes exceptionally
+   *         with the same {@link XMLDBException} as {@link #getCollection(String, Properties)}
+   *         would throw.
+   * @since 3.1
+   */
+  public static CompletionStage<Collection> getCollectionAsync(final String uri,
+      final Properties info) {
+    return DEFAULT_REGISTRY.getCollectionAsync(uri, info);
+  }
+
+  /**
+   * Asynchronously retrieves a {@link Collection} instance from the database for the given URI
+   * using the executor returned by {@link #getAsyncExecutor()}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param options The connection options
+   * @return A completion stage of the {@link Collection} instance for the requested collection or
+   *         {@code null} if the collection could not be found. The stage completes exceptionally
+   *         with the same {@link XMLDBException} as
+   *         {@link #getCollection(String, ConnectionOptions)} would throw.
+   * @since 3.1
+   */
+  public static CompletionStage<Collection> getCollectionAsync(final String uri,
+      final ConnectionOptions options) {
+    return DEFAULT_REGISTRY.getCollectionAsync(uri, options);
+  }
+
+  /**
+   * Asynchronously returns the Core Level conformance value for the provided URI using the
+   * executor returned by {@link #getAsyncExecutor()}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @return A completion stage of the XML:DB Core Level conformance for the uri. The stage
+   *         completes exceptionally with the same {@link XMLDBException} as
+   *         {@link #getConformanceLevel(String)} would throw.
+   * @since 3.1
+   */
+  public static CompletionStage<String> getConformanceLevelAsync(final String uri) {
+    return DEFAULT_REGISTRY.getConformanceLevelAsync(uri);
+  }
+
+  /**
+   * Returns the executor used to run the asynchronous operations of the {@link DatabaseManager}.
+   * Unless set explicitly, a virtual thread per task executor is used on Java runtimes supporting
+   * virtual threads, and a cached daemon thread pool otherwise.
+   *
+   * @return the executor for asynchronous operations
+   * @since 3.1
+   */
+  public static Executor getAsyncExecutor() {
+    return DEFAULT_REGISTRY.getAsyncExecutor();
+  }
+
+  /**
+   * Sets the executor used to run the asynchronous operations of the {@link DatabaseManager}.
+   *
+   * @param executor the executor to use, or {@code null} to use the default executor
+   * @since 3.1
+   */
+  public static void setAsyncExecutor(final Executor executor) {
+    DEFAULT_REGISTRY.setAsyncExecutor(executor);
+  }
+
+  /**
+   * Returns the delay after which the retrieval of a {@link Collection} is additionally started on
+   * the next {@link Database} accepting the same URI, or {@code null} if hedging is disabled.
+   *
+   * @return the hedging delay or {@code null}
+   * @since 3.1
+   */
+  public static Duration getHedgingDelay() {
+    return DEFAULT_REGISTRY.getHedgingDelay();
+  }
+
+  /**
+   * Enables or disables hedged retrieval of collections. If enabled, the {@code getCollection}
+   * methods start the request on the first {@link Database} accepting the URI and additionally on
+   * the next accepting one whenever the given delay has passed or a previous attempt has failed.
+   * The first successfully retrieved {@link Collection} is returned, collections retrieved later
+   * on are closed again. The attempts run on the executor returned by {@link #getAsyncExecutor()}.
+   * <p>
+   * Hedging is intended for databases being replicas of the same store, as the collection may be
+   * retrieved from any of them.
+   *
+   * @param delay the delay before the next database is tried, or {@code null} to disable hedging
+   * @throws IllegalArgumentException if the delay is negative
+   * @since 3.1
+   */
+  public static void setHedgingDelay(final Duration delay) {
+    DEFAULT_REGISTRY.setHedgingDelay(delay);
   }
 
   /**
@@ -237,7 +553,7 @@ public final class DatabaseManager {
    * @return The property value
    */
   public static String getProperty(final String name) {
-    return properties.get(name);
+    return DEFAULT_REGISTRY.getProperty(name);
   }
 
   /**
@@ -247,11 +563,30 @@ public final class DatabaseManager {
    * @param value The value to set.
    */
   public static void setProperty(final String name, final String value) {
-    if (value == null) {
-      properties.remove(name);
-    } else {
-      properties.put(name, value);
-    }
+    DEFAULT_REGISTRY.setProperty(name, value);
+  }
+
+  /**
+   * Sets the maximum number of resolved URIs kept in the dispatch cache. The cache maps each URI to
+   * the {@link Database} having handled it, as well as URIs no database accepts. Changing the size
+   * clears all currently cached entries.
+   *
+   * @param maximumSize the maximum number of cached URIs, {@code 0} disables the cache
+   * @throws IllegalArgumentException if {@code maximumSize} is negative
+   * @since 3.1
+   */
+  public static void setDispatchCacheSize(final int maximumSize) {
+    DEFAULT_REGISTRY.setDispatchCacheSize(maximumSize);
+  }
+
+  /**
+   * Returns the current statistics of the dispatch cache.
+   *
+   * @return the dispatch cache statistics
+   * @since 3.1
+   */
+  public static DispatchCacheStatistics getDispatchCacheStatistics() {
+    return DEFAULT_REGISTRY.getDispatchCacheStatistics();
   }
 
   /**
@@ -261,55 +596,8 @@ public final class DatabaseManager {
    * @return the requested {@link Database} instance.
    * @throws XMLDBException if an error occurs whilst getting the database
    */
-  static <T> T withDatabase(final String uri, final DatabaseFunction<T> function)
+  static <T> T withDatabase(final String uri, final DatabaseRegistry.DatabaseFunction<T> function)
       throws XMLDBException {
-    // Walk through the loaded registeredDrivers attempting to make a connection.
-    // Remember the first exception that gets raised, so we can re-throw it.
-    XMLDBException reason = null;
-    for (DatabaseInfo info : registeredDatabases) {
-      if (info.acceptsURI(uri)) {
-        try {
-          return function.apply(info.database);
-        } catch (XMLDBException ex) {
-          if (reason == null) {
-            reason = ex;
-          }
-        }
-      }
-    }
-    if (reason != null) {
-      throw reason;
-    }
-    throw new XMLDBException(NO_SUCH_DATABASE, "No matching database found for: " + uri);
-  }
-
-  @FunctionalInterface
-  interface DatabaseFunction<T> {
-    T apply(Database database) throws XMLDBException;
-  }
-
-  record DatabaseInfo(Database database, DatabaseAction action) {
-    boolean acceptsURI(String uri) {
-      return database.acceptsURI(uri);
-    }
-
-    void deregister() {
-      if (action != null) {
-        action.deregister();
-      }
-    }
-
-    @Override
-    public int hashCode() {
-      return database.hashCode();
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-      if (obj instanceof DatabaseInfo other) {
-        return database.equals(other.database);
-      }
-      return false;
-    }
+    return DEFAULT_REGISTRY.withDatabase(uri, function);
   }
 }
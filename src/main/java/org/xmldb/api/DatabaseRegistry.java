@@ -0,0 +1,1056 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.xmldb.api.base.ErrorCodes.INSTANCE_NAME_ALREADY_REGISTERED;
+import static org.xmldb.api.base.ErrorCodes.INVALID_URI;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_DATABASE;
+import static org.xmldb.api.base.ErrorCodes.UNKNOWN_ERROR;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.ServiceLoader.Provider;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.xmldb.api.DatabaseIndex.Resolution;
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.ConnectionOptions;
+import org.xmldb.api.base.Database;
+import org.xmldb.api.base.DatabaseAction;
+import org.xmldb.api.base.DatabaseDriver;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
+
+/**
+ * Registry of {@link Database} implementations dispatching URIs to the registered databases. Each
+ * registry has its own databases, properties and dispatch configuration, which allows isolating
+ * several tenants within the same application:
+ *
+ * <pre>
+ * DatabaseRegistry registry = new DatabaseRegistry();
+ * registry.registerDatabase(database);
+ * Collection collection = registry.getCollection("xmldb:vendordb://host:port/db");
+ * </pre>
+ * <p>
+ * The static methods of the {@link DatabaseManager} delegate to a default registry, see
+ * {@link DatabaseManager#getDefaultRegistry()}. In contrast to the default registry, a newly
+ * created registry does not register the databases provided through the {@link ServiceLoader}
+ * mechanism unless {@link #loadDatabases(ClassLoader)} is called.
+ *
+ * @since 3.1
+ */
+public final class DatabaseRegistry {
+  /**
+   * Defines the default maximum number of resolved URIs kept in the dispatch cache.
+   */
+  public static final int DEFAULT_DISPATCH_CACHE_SIZE = 1024;
+
+  /**
+   * Defines the priority of databases registered without an explicit priority.
+   */
+  public static final int DEFAULT_PRIORITY = 0;
+
+  private final Map<String, String> properties = new ConcurrentHashMap<>();
+  private final List<DatabaseInfo> registeredDatabases = new ArrayList<>();
+  private final LongAdder dispatchCacheHits = new LongAdder();
+  private final LongAdder dispatchCacheMisses = new LongAdder();
+  private volatile int dispatchCacheSize = DEFAULT_DISPATCH_CACHE_SIZE;
+  private volatile DatabaseIndex databaseIndex = DatabaseIndex.EMPTY;
+  private volatile Executor asyncExecutor;
+  private volatile Duration hedgingDelay;
+  private volatile DispatchListener[] dispatchListeners = new DispatchListener[0];
+  private volatile CircuitBreakerPolicy circuitBreakerPolicy;
+
+  /**
+   * Creates a new registry without any registered database.
+   */
+  public DatabaseRegistry() {
+    // databases are registered explicitly
+  }
+
+  /**
+   * Returns a set of all available {@link Database} implementations that have been registered with
+   * this registry. The set iterates the databases by descending priority and by registration order
+   * for databases of the same priority. This is not necessarily the order the databases are probed
+   * for a URI, as the databases registered for the prefix of the URI are probed first.
+   * <p>
+   * Databases loaded by {@link #loadDatabases(ClassLoader)} are returned as the instance of the
+   * provider once they have been instantiated. Until then, a placeholder is returned instead,
+   * which instantiates the provided database when being used and can be passed to
+   * {@link #deregisterDatabase(Database)}.
+   *
+   * @return An array of {@link Database} instances. One for each {@link Database} registered with
+   *         this registry. If no {@link Database} instances exist then an empty set is
+   *         returned.
+   */
+  public Set<Database> getDatabases() {
+    return databaseIndex.databases().stream().map(info -> LazyDatabase.unwrap(info.database))
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+  /**
+   * Registers a new {@link Database} implementation with this registry. The provided
+   * database will be registered without an associated action.
+   *
+   * @param database The {@link Database} instance to register.
+   * @throws XMLDBException if the database instance is already registered or if an error occurs
+   *         during the registration process.
+   */
+  public void registerDatabase(final Database database) throws XMLDBException {
+    registerDatabase(database, null);
+  }
+
+  /**
+   * Registers a new {@link Database} implementation with this registry, along with
+   * the specified {@link DatabaseAction} to associate with it.
+   *
+   * @param database The database instance to register.
+   * @param action The action to associate with the database upon registration.
+   * @throws XMLDBException if the database instance is already registered or if an error occurs
+   *         during the registration process.
+   */
+  public void registerDatabase(final Database database, final DatabaseAction action)
+      throws XMLDBException {
+    registerDatabase(database, action, Set.of());
+  }
+
+  /**
+   * Registers a new {@link Database} implementation with this registry, along with
+   * the specified {@link DatabaseAction} and the URI prefixes the database handles.
+   * <p>
+   * Each URI prefix consists of the {@link DatabaseManager#URI_PREFIX} followed by the database
+   * specific name and a colon character, for example {@code xmldb:vendordb:}. URIs starting with
+   * one of the given prefixes are dispatched to the database by a direct lookup without calling
+   * {@link Database#acceptsURI(XmldbUri)}. Databases registered without any prefix are asked using
+   * {@link Database#acceptsURI(XmldbUri)} after all matching prefixed databases have been tried.
+   *
+   * @param database The database instance to register.
+   * @param action The action to associate with the database upon registration.
+   * @param uriPrefixes The URI prefixes handled by the database, may be empty.
+   * @throws XMLDBException if the database instance is already registered or if an error occurs
+   *         during the registration process. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} if
+   *         one of the URI prefixes is not in a valid format.
+   */
+  public void registerDatabase(final Database database, final DatabaseAction action,
+      final Set<String> uriPrefixes) throws XMLDBException {
+    registerDatabase(database, action, uriPrefixes, DEFAULT_PRIORITY);
+  }
+
+  /**
+   * Registers a new {@link Database} implementation with this registry, along with the specified
+   * {@link DatabaseAction}, the URI prefixes the database handles and its dispatch priority.
+   * <p>
+   * Databases with a higher priority are probed before those with a lower priority, which allows
+   * specialized in-process databases to take precedence over remote or catch-all databases
+   * regardless of their registration order. Databases of the same priority are probed in
+   * registration order. The priority applies within the databases registered for the same URI
+   * prefix as well as within the databases without URI prefix, which are still asked after all
+   * matching prefixed databases.
+   *
+   * @param database The database instance to register.
+   * @param action The action to associate with the database upon registration.
+   * @param uriPrefixes The URI prefixes handled by the database, may be empty.
+   * @param priority The dispatch priority, {@link #DEFAULT_PRIORITY} for the default.
+   * @throws XMLDBException if the database instance is already registered or if an error occurs
+   *         during the registration process. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} if
+   *         one of the URI prefixes is not in a valid format.
+   */
+  public void registerDatabase(final Database database, final DatabaseAction action,
+      final Set<String> uriPrefixes, final int priority) throws XMLDBException {
+    for (String uriPrefix : uriPrefixes) {
+      if (!uriPrefix.equals(XmldbUri.of(uriPrefix).prefix())) {
+        throw new XMLDBException(INVALID_URI, "Invalid URI prefix: " + uriPrefix);
+      }
+    }
+    final DatabaseInfo info = new DatabaseInfo(database, action, Set.copyOf(uriPrefixes),
+        priority, new CircuitBreaker());
+    final List<DatabaseInfo> replaced = new ArrayList<>();
+    final DispatchListener[] listeners;
+    synchronized (registeredDatabases) {
+      if (registeredDatabases.contains(info) || database instanceof LazyDatabase
+          && registeredDatabases.stream().anyMatch(
+              registered -> LazyDatabase.sameProvider(database, registered.database))) {
+        throw new XMLDBException(INSTANCE_NAME_ALREADY_REGISTERED);
+      }
+      // an instance replaces the database of the same type loaded from a provider
+      registeredDatabases.removeIf(registered -> {
+        if (LazyDatabase.sameProvider(database, registered.database)) {
+          if (LazyDatabase.unwrap(registered.database) != database) {
+            registered.deregister();
+          }
+          replaced.add(registered);
+          return true;
+        }
+        return false;
+      });
+      // keep the list sorted by descending priority, after all databases of the same priority
+      int index = registeredDatabases.size();
+      while (index > 0 && registeredDatabases.get(index - 1).priority < priority) {
+        index--;
+      }
+      registeredDatabases.add(index, info);
+      databaseIndex = DatabaseIndex.of(registeredDatabases, dispatchCacheSize);
+      listeners = dispatchListeners;
+    }
+    deregistered(replaced, listeners);
+  }
+
+  /**
+   * Registers all {@link Database} implementations provided through the {@link ServiceLoader}
+   * mechanism using the given class loader, that are not already registered.
+   * <p>
+   * The databases are not instantiated while being registered. Instead the URI prefixes declared
+   * by the {@link DatabaseDriver} annotation of the provider class are used for the dispatch, so
+   * that a database is created on the first request for a URI it handles. Databases without
+   * declared URI prefixes are created on the first dispatch, as they need to be asked by
+   * {@link Database#acceptsURI(String)}. If the created database implements
+   * {@link DatabaseAction}, it is notified when being deregistered.
+   * <p>
+   * Providers whose type is already registered as an instance are skipped. If an instance of a
+   * provided type is registered later on, including a provided database registering itself when
+   * being instantiated, the instance replaces the provided database.
+   *
+   * @param classLoader the class loader used to locate the provided databases, or {@code null} for
+   *        the system class loader
+   */
+  public void loadDatabases(final ClassLoader classLoader) {
+    final Iterator<Provider<Database>> providers =
+        ServiceLoader.load(Database.class, classLoader).stream().iterator();
+    for (;;) {
+      try {
+        if (!providers.hasNext()) {
+          return;
+        }
+        registerProvider(providers.next());
+      } catch (ServiceConfigurationError e) {
+        // skip the broken provider only, the service loader continues with the next one
+      }
+    }
+  }
+
+  private void registerProvider(final Provider<Database> provider) {
+    final DatabaseDriver driver = provider.type().getAnnotation(DatabaseDriver.class);
+    final LazyDatabase database = new LazyDatabase(provider);
+    try {
+      if (driver == null) {
+        registerDatabase(database, database, Set.of(), DEFAULT_PRIORITY);
+      } else {
+        registerDatabase(database, database, Set.copyOf(List.of(driver.uriPrefixes())),
+            driver.priority());
+      }
+    } catch (XMLDBException e) {
+      // either already registered or an invalid driver declaration
+    }
+  }
+
+  /**
+   * Deregisters a {@link Database} implementation from this registry. Once a
+   * {@link Database} has been deregistered it can no longer be used to handle requests.
+   *
+   * @param database The {@link Database} instance to deregister.
+   */
+  public void deregisterDatabase(final Database database) {
+    final List<DatabaseInfo> removed = new ArrayList<>();
+    final DispatchListener[] listeners;
+    synchronized (registeredDatabases) {
+      registeredDatabases.removeIf(info -> {
+        if (info.database.equals(database) || LazyDatabase.unwrap(info.database) == database) {
+          info.deregister();
+          removed.add(info);
+          return true;
+        }
+        return false;
+      });
+      databaseIndex = DatabaseIndex.of(registeredDatabases, dispatchCacheSize);
+      listeners = dispatchListeners;
+    }
+    deregistered(removed, listeners);
+  }
+
+  private static void deregistered(final List<DatabaseInfo> removed,
+      final DispatchListener[] listeners) {
+    for (DatabaseInfo info : removed) {
+      for (DispatchListener listener : listeners) {
+        try {
+          listener.databaseDeregistered(info.database);
+        } catch (RuntimeException e) {
+          // listeners must not affect the deregistration
+        }
+      }
+    }
+  }
+
+  /**
+   * Registers a listener receiving the timings of each URI dispatch to the registered databases.
+   * See {@link DispatchListener} for details.
+   *
+   * @param listener the listener to be added
+   */
+  public void addDispatchListener(final DispatchListener listener) {
+    Objects.requireNonNull(listener, "listener");
+    synchronized (registeredDatabases) {
+      final DispatchListener[] listeners =
+          Arrays.copyOf(dispatchListeners, dispatchListeners.length + 1);
+      listeners[listeners.length - 1] = listener;
+      dispatchListeners = listeners;
+    }
+  }
+
+  /**
+   * Removes a previously registered dispatch listener.
+   *
+   * @param listener the listener to be removed
+   */
+  public void removeDispatchListener(final DispatchListener listener) {
+    synchronized (registeredDatabases) {
+      dispatchListeners = Arrays.stream(dispatchListeners)
+          .filter(registered -> !registered.equals(listener)).toArray(DispatchListener[]::new);
+    }
+  }
+
+  /**
+   * Returns the active circuit breaker policy.
+   *
+   * @return the circuit breaker policy or {@code null} if circuit breaking is disabled
+   */
+  public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+    return circuitBreakerPolicy;
+  }
+
+  /**
+   * Sets the policy used to track the health of each registered database. A database failing
+   * {@link CircuitBreakerPolicy#failureThreshold()} times in a row is skipped during the dispatch
+   * until {@link CircuitBreakerPolicy#openDuration()} has passed, after which a single trial
+   * request decides whether it is used again. If all databases accepting a URI are skipped, the
+   * dispatch fails with {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_DATABASE}.
+   * <p>
+   * Errors caused by the request itself, namely
+   * {@link org.xmldb.api.base.ErrorCodes#PERMISSION_DENIED},
+   * {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} and
+   * {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_COLLECTION}, are not counted as failures but
+   * as an answer of an available database, while runtime exceptions thrown by a database are
+   * counted as failures. Setting a policy resets the health of all registered databases. Circuit
+   * breaking is disabled by default.
+   *
+   * @param policy the circuit breaker policy or {@code null} to disable circuit breaking
+   */
+  public void setCircuitBreakerPolicy(final CircuitBreakerPolicy policy) {
+    synchronized (registeredDatabases) {
+      registeredDatabases.forEach(info -> info.breaker.reset());
+      circuitBreakerPolicy = policy;
+    }
+  }
+
+  /**
+   * Returns the circuit breaker state of all registered databases in the order of
+   * {@link #getDatabases()}, that is by descending priority and by registration order for
+   * databases of the same priority.
+   *
+   * @return the circuit breaker status of each registered database
+   */
+  public List<CircuitBreakerStatus> getCircuitBreakerStatus() {
+    return databaseIndex.databases().stream()
+        .map(info -> new CircuitBreakerStatus(LazyDatabase.unwrap(info.database),
+            info.breaker.state(), info.breaker.consecutiveFailures()))
+        .toList();
+  }
+
+  /**
+   * Retrieves a {@link Collection} instance from the database for the given URI. The format of the
+   * majority of the URI is database implementation specific however the uri must begin with
+   * characters xmldb: and be followed by the name of the database instance as returned by
+   * {@link Database#getName()} and a colon character. An example would be for the database named
+   * "vendordb" the URI handed to getCollection would look something like the following.
+   * {@code xmldb:vendordb://host:port/path/to/collection}.
+   * <p>
+   * This method is called when no authentication is necessary for the database.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @return A {@link Collection} instance for the requested collection or {@code null} if the
+   *         collection could not be found.
+   * @throws XMLDBException with expected error codes.
+   *         {@link org.xmldb.api.base.ErrorCodes#VENDOR_ERROR} for any vendor specific errors that
+   *         occur. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} If the URI is not in a valid
+   *         format. {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_DATABASE} If a {@link Database}
+   *         instance could not be found to handle the provided URI.
+   */
+  public Collection getCollection(final String uri) throws XMLDBException {
+    return getCollection(uri, ConnectionOptions.EMPTY);
+  }
+
+  /**
+   * Retrieves a {@link Collection} instance from the database for the given URI. The format of the
+   * majority of the URI is database implementation specific however the uri must begin with
+   * characters xmldb: and be followed by the name of the database instance as returned by
+   * {@link Database#getName()} and a colon character. An example would be for the database named
+   * "vendordb" the URI handed to getCollection would look something like the following.
+   * {@code xmldb:vendordb://host:port/path/to/collection}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param user The username to use for authentication to the database or {@code null} if the
+   *        database does not support authentication.
+   * @param password The password to use for authentication to the database or {@code null} if the
+   *        database does not support authentication.
+   * @return A {@code Collection} instance for the requested collection or {@code null} if the
+   *         collection could not be found.
+   * @throws XMLDBException with expected error codes.
+   *         {@link org.xmldb.api.base.ErrorCodes#VENDOR_ERROR} for any vendor specific errors that
+   *         occur. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} If the URI is not in a valid
+   *         format. {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_DATABASE} If a {@link Database}
+   *         instance could not be found to handle the provided URI.
+   *         {@link org.xmldb.api.base.ErrorCodes#PERMISSION_DENIED} If the {@code username} and
+   *         {@code password} were not accepted by the database.
+   */
+  public Collection getCollection(final String uri, final String user, final String password)
+      throws XMLDBException {
+    return getCollection(uri, ConnectionOptions.of(user, password));
+  }
+
+  /**
+   * Retrieves a {@link Collection} instance from the database for the given URI. The format of the
+   * majority of the URI is database implementation specific however the uri must begin with
+   * characters xmldb: and be followed by the name of the database instance as returned by
+   * {@link Database#getName()} and a colon character. An example would be for the database named
+   * "vendordb" the URI handed to getCollection would look something like the following.
+   * {@code xmldb:vendordb://host:port/path/to/collection}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param info The database specific connection options
+   * @return A {@code Collection} instance for the requested collection or {@code null} if the
+   *         collection could not be found.
+   * @throws XMLDBException with expected error codes.
+   *         {@link org.xmldb.api.base.ErrorCodes#VENDOR_ERROR} for any vendor specific errors that
+   *         occur. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} If the URI is not in a valid
+   *         format. {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_DATABASE} If a {@link Database}
+   *         instance could not be found to handle the provided URI.
+   *         {@link org.xmldb.api.base.ErrorCodes#PERMISSION_DENIED} If the {@code username} and
+   *         {@code password} were not accepted by the database.
+   */
+  public Collection getCollection(final String uri, final Properties info)
+      throws XMLDBException {
+    return getCollection(parse(uri), database -> database.getCollection(uri, info));
+  }
+
+  /**
+   * Retrieves a {@link Collection} instance from the database for the given URI using the given
+   * typed connection options. See {@link #getCollection(String, Properties)} for the URI format.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param options The connection options
+   * @return A {@code Collection} instance for the requested collection or {@code null} if the
+   *         collection could not be found.
+   * @throws XMLDBException with expected error codes.
+   *         {@link org.xmldb.api.base.ErrorCodes#VENDOR_ERROR} for any vendor specific errors that
+   *         occur. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} If the URI is not in a valid
+   *         format. {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_DATABASE} If a {@link Database}
+   *         instance could not be found to handle the provided URI.
+   *         {@link org.xmldb.api.base.ErrorCodes#PERMISSION_DENIED} If the {@code username} and
+   *         {@code password} were not accepted by the database.
+   */
+  public Collection getCollection(final String uri, final ConnectionOptions options)
+      throws XMLDBException {
+    final XmldbUri parsed = parse(uri);
+    return getCollection(parsed, database -> database.getCollection(parsed, options));
+  }
+
+  private Collection getCollection(final XmldbUri uri,
+      final DatabaseFunction<Collection> function) throws XMLDBException {
+    final Duration delay = hedgingDelay;
+    if (delay == null) {
+      return withDatabase(uri, function);
+    }
+    return await(withDatabaseHedged(uri, function, delay));
+  }
+
+  /**
+   * Returns the Core Level conformance value for the provided URI. The current API defines valid
+   * results of "0" or "1" as defined in the XML:DB API specification.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @return The XML:DB Core Level conformance for the uri.
+   * @throws XMLDBException with expected error codes.
+   *         {@link org.xmldb.api.base.ErrorCodes#VENDOR_ERROR} for any vendor specific errors that
+   *         occur. {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} If the URI is not in a valid
+   *         format. {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_DATABASE} If a {@link Database}
+   *         instance could not be found to handle the provided URI.
+   */
+  public String getConformanceLevel(final String uri) throws XMLDBException {
+    return withDatabase(parse(uri), Database::getConformanceLevel);
+  }
+
+  /**
+   * Asynchronously retrieves a {@link Collection} instance from the database for the given URI
+   * using the executor returned by {@link #getAsyncExecutor()}.
+   * <p>
+   * This method is called when no authentication is necessary for the database.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @return A completion stage of the {@link Collection} instance for the requested collection or
+   *         {@code null} if the collection could not be found. The stage completes exceptionally
+   *         with the same {@link XMLDBException} as {@link #getCollection(String)} would throw.
+   */
+  public CompletionStage<Collection> getCollectionAsync(final String uri) {
+    return getCollectionAsync(uri, ConnectionOptions.EMPTY);
+  }
+
+  /**
+   * Asynchronously retrieves a {@link Collection} instance from the database for the given URI
+   * using the executor returned by {@link #getAsyncExecutor()}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param user The username to use for authentication to the database or {@code null} if the
+   *        database does not support authentication.
+   * @param password The password to use for authentication to the database or {@code null} if the
+   *        database does not support authentication.
+   * @return A completion stage of the {@link Collection} instance for the requested collection or
+   *         {@code null} if the collection could not be found. The stage completes exceptionally
+   *         with the same {@link XMLDBException} as
+   *         {@link #getCollection(String, String, String)} would throw.
+   */
+  public CompletionStage<Collection> getCollectionAsync(final String uri,
+      final String user, final String password) {
+    return getCollectionAsync(uri, ConnectionOptions.of(user, password));
+  }
+
+  /**
+   * Asynchronously retrieves a {@link Collection} instance from the database for the given URI
+   * using the executor returned by {@link #getAsyncExecutor()}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param info The database specific connection options
+   * @return A completion stage of the {@link Collection} instance for the requested collection or
+   *         {@code null} if the collection could not be found. The stage completes exceptionally
+   *         with the same {@link XMLDBException} as {@link #getCollection(String, Properties)}
+   *         would throw.
+   */
+  public CompletionStage<Collection> getCollectionAsync(final String uri,
+      final Properties info) {
+    final XmldbUri parsed;
+    try {
+      parsed = parse(uri);
+    } catch (XMLDBException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return getCollectionAsync(parsed, database -> database.getCollection(uri, info));
+  }
+
+  /**
+   * Asynchronously retrieves a {@link Collection} instance from the database for the given URI
+   * using the executor returned by {@link #getAsyncExecutor()}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @param options The connection options
+   * @return A completion stage of the {@link Collection} instance for the requested collection or
+   *         {@code null} if the collection could not be found. The stage completes exceptionally
+   *         with the same {@link XMLDBException} as
+   *         {@link #getCollection(String, ConnectionOptions)} would throw.
+   */
+  public CompletionStage<Collection> getCollectionAsync(final String uri,
+      final ConnectionOptions options) {
+    final XmldbUri parsed;
+    try {
+      parsed = parse(uri);
+    } catch (XMLDBException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return getCollectionAsync(parsed, database -> database.getCollection(parsed, options));
+  }
+
+  private CompletionStage<Collection> getCollectionAsync(final XmldbUri uri,
+      final DatabaseFunction<Collection> function) {
+    final Duration delay = hedgingDelay;
+    if (delay == null) {
+      return supplyAsync(() -> withDatabase(uri, function));
+    }
+    return withDatabaseHedged(uri, function, delay);
+  }
+
+  /**
+   * Asynchronously returns the Core Level conformance value for the provided URI using the
+   * executor returned by {@link #getAsyncExecutor()}.
+   *
+   * @param uri The database specific URI to use to locate the collection.
+   * @return A completion stage of the XML:DB Core Level conformance for the uri. The stage
+   *         completes exceptionally with the same {@link XMLDBException} as
+   *         {@link #getConformanceLevel(String)} would throw.
+   */
+  public CompletionStage<String> getConformanceLevelAsync(final String uri) {
+    return supplyAsync(() -> getConformanceLevel(uri));
+  }
+
+  /**
+   * Returns the executor used to run the asynchronous operations of this registry.
+   * Unless set explicitly, a virtual thread per task executor is used on Java runtimes supporting
+   * virtual threads, and a cached daemon thread pool otherwise.
+   *
+   * @return the executor for asynchronous operations
+   */
+  public Executor getAsyncExecutor() {
+    final Executor executor = asyncExecutor;
+    return executor == null ? DefaultExecutor.INSTANCE : executor;
+  }
+
+  /**
+   * Sets the executor used to run the asynchronous operations of this registry.
+   *
+   * @param executor the executor to use, or {@code null} to use the default executor
+   */
+  public void setAsyncExecutor(final Executor executor) {
+    asyncExecutor = executor;
+  }
+
+  /**
+   * Returns the delay after which the retrieval of a {@link Collection} is additionally started on
+   * the next {@link Database} accepting the same URI, or {@code null} if hedging is disabled.
+   *
+   * @return the hedging delay or {@code null}
+   */
+  public Duration getHedgingDelay() {
+    return hedgingDelay;
+  }
+
+  /**
+   * Enables or disables hedged retrieval of collections. If enabled, the {@code getCollection}
+   * methods start the request on the first {@link Database} accepting the URI and additionally on
+   * the next accepting one whenever the given delay has passed or a previous attempt has failed.
+   * The first successfully retrieved {@link Collection} is returned, collections retrieved later
+   * on are closed again. The attempts run on the executor returned by {@link #getAsyncExecutor()}.
+   * <p>
+   * Hedging is intended for databases being replicas of the same store, as the collection may be
+   * retrieved from any of them.
+   *
+   * @param delay the delay before the next database is tried, or {@code null} to disable hedging
+   * @throws IllegalArgumentException if the delay is negative
+   */
+  public void setHedgingDelay(final Duration delay) {
+    if (delay != null && delay.isNegative()) {
+      throw new IllegalArgumentException("Negative hedging delay: " + delay);
+    }
+    hedgingDelay = delay;
+  }
+
+  <T> CompletionStage<T> supplyAsync(final DatabaseCall<T> call) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      getAsyncExecutor().execute(() -> {
+        try {
+          future.complete(call.call());
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Retrieves a property that has been set for this registry.
+   *
+   * @param name The property name
+   * @return The property value
+   */
+  public String getProperty(final String name) {
+    return properties.get(name);
+  }
+
+  /**
+   * Sets a property for this registry.
+   *
+   * @param name The property name
+   * @param value The value to set.
+   */
+  public void setProperty(final String name, final String value) {
+    if (value == null) {
+      properties.remove(name);
+    } else {
+      properties.put(name, value);
+    }
+  }
+
+  /**
+   * Sets the maximum number of resolved URIs kept in the dispatch cache. The cache maps each URI to
+   * the databases registered without URI prefix that accept it, so that they do not need to be
+   * asked by {@link Database#acceptsURI(XmldbUri)} again, as well as URIs no database accepts. The
+   * accepting databases are still tried in priority order on every dispatch, regardless of which
+   * of them handled the URI before. Changing the size clears all currently cached entries.
+   *
+   * @param maximumSize the maximum number of cached URIs, {@code 0} disables the cache
+   * @throws IllegalArgumentException if {@code maximumSize} is negative
+   */
+  public void setDispatchCacheSize(final int maximumSize) {
+    if (maximumSize < 0) {
+      throw new IllegalArgumentException("Negative dispatch cache size: " + maximumSize);
+    }
+    synchronized (registeredDatabases) {
+      dispatchCacheSize = maximumSize;
+      databaseIndex = DatabaseIndex.of(registeredDatabases, maximumSize);
+    }
+  }
+
+  /**
+   * Returns the current statistics of the dispatch cache.
+   *
+   * @return the dispatch cache statistics
+   */
+  public DispatchCacheStatistics getDispatchCacheStatistics() {
+    final DatabaseIndex index = databaseIndex;
+    return new DispatchCacheStatistics(dispatchCacheHits.sum(), dispatchCacheMisses.sum(),
+        index.size(), dispatchCacheSize);
+  }
+
+  /**
+   * Retrieves the registered {@link Database} instance associated with the provided URI.
+   *
+   * @param uri The uri containing the database reference.
+   * @return the requested {@link Database} instance.
+   * @throws XMLDBException if an error occurs whilst getting the database
+   */
+  <T> T withDatabase(final String uri, final DatabaseFunction<T> function)
+      throws XMLDBException {
+    return withDatabase(parse(uri), function);
+  }
+
+  <T> T withDatabase(final XmldbUri uri, final DatabaseFunction<T> function)
+      throws XMLDBException {
+    final DispatchRecorder recorder = DispatchRecorder.start(dispatchListeners, uri);
+    if (recorder == null) {
+      return dispatch(uri, function, null);
+    }
+    try {
+      return dispatch(uri, function, recorder);
+    } catch (XMLDBException e) {
+      recorder.ended(null, e);
+      throw e;
+    } catch (RuntimeException | Error e) {
+      recorder.ended(null, new XMLDBException(UNKNOWN_ERROR, e));
+      throw e;
+    }
+  }
+
+  private <T> T dispatch(final XmldbUri uri, final DatabaseFunction<T> function,
+      final DispatchRecorder recorder) throws XMLDBException {
+    final DatabaseIndex index = databaseIndex;
+    final CircuitBreakerPolicy policy = circuitBreakerPolicy;
+    final Resolution cached = lookup(index, uri);
+    final Resolution resolution = cached == null ? Resolution.NONE : cached;
+    final List<DatabaseInfo> unprefixed = index.unprefixed();
+    final List<DatabaseInfo> found = new ArrayList<>();
+    int probed = resolution.probed();
+    // Remember the first exception that gets raised, so we can re-throw it.
+    XMLDBException reason = null;
+    boolean skipped = false;
+    try {
+      // Walk through the databases registered for the URI prefix first, then through the ones
+      // known to accept the URI and finally ask the remaining ones attempting to make a
+      // connection.
+      final List<DatabaseInfo> prefixed = index.prefixed(uri.prefix());
+      for (int i = 0; i < prefixed.size() + resolution.accepted().size(); i++) {
+        final DatabaseInfo info = i < prefixed.size() ? prefixed.get(i)
+            : resolution.accepted().get(i - prefixed.size());
+        if (!info.isAvailable(policy)) {
+          skipped = true;
+          continue;
+        }
+        try {
+          return handle(info, function, recorder, policy);
+        } catch (XMLDBException ex) {
+          if (reason == null) {
+            reason = ex;
+          }
+        }
+      }
+      while (probed < unprefixed.size()) {
+        final DatabaseInfo info = unprefixed.get(probed);
+        final boolean accepts = info.acceptsURI(uri);
+        probed++;
+        if (!accepts) {
+          continue;
+        }
+        found.add(info);
+        if (!info.isAvailable(policy)) {
+          skipped = true;
+          continue;
+        }
+        try {
+          return handle(info, function, recorder, policy);
+        } catch (XMLDBException ex) {
+          if (reason == null) {
+            reason = ex;
+          }
+        }
+      }
+    } finally {
+      if (cached == null || probed > cached.probed()) {
+        index.resolve(uri, resolution.extend(found, probed));
+      }
+    }
+    if (reason != null) {
+      throw reason;
+    }
+    if (skipped) {
+      throw new XMLDBException(NO_SUCH_DATABASE, "No available database found for: " + uri);
+    }
+    throw new XMLDBException(NO_SUCH_DATABASE, "No matching database found for: " + uri);
+  }
+
+  private Resolution lookup(final DatabaseIndex index, final XmldbUri uri) {
+    final Resolution resolution = index.resolved(uri);
+    if (resolution != null) {
+      dispatchCacheHits.increment();
+    } else if (index.maximumSize() > 0) {
+      dispatchCacheMisses.increment();
+    }
+    return resolution;
+  }
+
+  /**
+   * Applies the function to the given database, ending the recorded sequential dispatch with the
+   * database on success.
+   */
+  private <T> T handle(final DatabaseInfo info, final DatabaseFunction<T> function,
+      final DispatchRecorder recorder, final CircuitBreakerPolicy policy) throws XMLDBException {
+    final T result = apply(info, function, recorder, policy);
+    if (recorder != null) {
+      recorder.ended(info.database, null);
+    }
+    return result;
+  }
+
+  private <T> T apply(final DatabaseInfo info, final DatabaseFunction<T> function,
+      final DispatchRecorder recorder, final CircuitBreakerPolicy policy) throws XMLDBException {
+    if (policy == null) {
+      return apply(info.database, function, recorder);
+    }
+    try {
+      final T result = apply(info.database, function, recorder);
+      info.breaker.recordSuccess();
+      return result;
+    } catch (XMLDBException ex) {
+      info.breaker.recordFailure(policy, ex);
+      throw ex;
+    } catch (RuntimeException | Error e) {
+      info.breaker.recordFailure(policy);
+      throw e;
+    }
+  }
+
+  private <T> T apply(final Database database, final DatabaseFunction<T> function,
+      final DispatchRecorder recorder) throws XMLDBException {
+    if (recorder == null) {
+      return function.apply(database);
+    }
+    return recorder.apply(database, function);
+  }
+
+  CompletableFuture<Collection> withDatabaseHedged(final XmldbUri uri,
+      final DatabaseFunction<Collection> function, final Duration delay) {
+    final DispatchRecorder recorder = DispatchRecorder.start(dispatchListeners, uri);
+    final DatabaseIndex index = databaseIndex;
+    final Resolution cached = lookup(index, uri);
+    final Resolution resolution = cached == null ? Resolution.NONE : cached;
+    final List<DatabaseInfo> unprefixed = index.unprefixed();
+    final List<DatabaseInfo> found = new ArrayList<>();
+    for (DatabaseInfo info : unprefixed.subList(resolution.probed(), unprefixed.size())) {
+      if (info.acceptsURI(uri)) {
+        found.add(info);
+      }
+    }
+    if (cached == null || cached.probed() < unprefixed.size()) {
+      index.resolve(uri, resolution.extend(found, unprefixed.size()));
+    }
+    final List<DatabaseInfo> candidates = new ArrayList<>(index.prefixed(uri.prefix()));
+    candidates.addAll(resolution.accepted());
+    candidates.addAll(found);
+    if (candidates.isEmpty()) {
+      final XMLDBException error =
+          new XMLDBException(NO_SUCH_DATABASE, "No matching database found for: " + uri);
+      if (recorder != null) {
+        recorder.ended(null, error);
+      }
+      return CompletableFuture.failedFuture(error);
+    }
+    // the availability is checked when each attempt starts, so that candidates not attempted do
+    // not take the trial request of a half-open circuit breaker
+    final CircuitBreakerPolicy policy = circuitBreakerPolicy;
+    final HedgedDispatch dispatch = HedgedDispatch.start(candidates,
+        info -> info.isAvailable(policy),
+        () -> new XMLDBException(NO_SUCH_DATABASE, "No available database found for: " + uri),
+        info -> apply(info, function, recorder, policy), delay, getAsyncExecutor());
+    if (recorder != null) {
+      dispatch.result().whenComplete((collection, error) -> {
+        if (error == null) {
+          recorder.ended(dispatch.winner().join().database, null);
+        } else if (error instanceof XMLDBException xmldbException) {
+          recorder.ended(null, xmldbException);
+        } else {
+          recorder.ended(null, new XMLDBException(UNKNOWN_ERROR, error));
+        }
+      });
+    }
+    return dispatch.result();
+  }
+
+  static Collection await(final CompletableFuture<Collection> future) throws XMLDBException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof XMLDBException xmldbException) {
+        throw xmldbException;
+      } else if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new XMLDBException(UNKNOWN_ERROR, cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      // make sure a collection retrieved later on does not leak
+      future.thenAccept(collection -> {
+        try {
+          if (collection != null) {
+            collection.close();
+          }
+        } catch (XMLDBException ex) {
+          // nobody is waiting for the collection anymore
+        }
+      });
+      throw new XMLDBException(UNKNOWN_ERROR, "Interrupted while retrieving collection", e);
+    }
+  }
+
+  /**
+   * Parses the given URI once, so that it does not need to be parsed again for each database.
+   *
+   * @param uri the URI to be parsed
+   * @return the parsed URI
+   * @throws XMLDBException with expected error codes.
+   *         {@link org.xmldb.api.base.ErrorCodes#INVALID_URI} if the URI is {@code null}
+   */
+  static XmldbUri parse(final String uri) throws XMLDBException {
+    if (uri == null) {
+      throw new XMLDBException(INVALID_URI, "URI must not be null");
+    }
+    return XmldbUri.of(uri);
+  }
+
+  @FunctionalInterface
+  interface DatabaseFunction<T> {
+    T apply(Database database) throws XMLDBException;
+  }
+
+  @FunctionalInterface
+  interface DatabaseCall<T> {
+    T call() throws XMLDBException;
+  }
+
+  static final class DefaultExecutor {
+    static final Executor INSTANCE = create();
+
+    private DefaultExecutor() {}
+
+    private static Executor create() {
+      try {
+        // use virtual threads if supported by the runtime
+        return (ExecutorService) MethodHandles.publicLookup()
+            .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                MethodType.methodType(ExecutorService.class))
+            .invoke();
+      } catch (Throwable e) {
+        return Executors.newCachedThreadPool(runnable -> {
+          final Thread thread = new Thread(runnable, "xmldb-async");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+    }
+  }
+
+  record DatabaseInfo(Database database, DatabaseAction action, Set<String> uriPrefixes,
+      int priority, CircuitBreaker breaker) {
+    boolean acceptsURI(XmldbUri uri) {
+      return database.acceptsURI(uri);
+    }
+
+    boolean isAvailable(CircuitBreakerPolicy policy) {
+      return policy == null || breaker.allowRequest(policy);
+    }
+
+    void deregister() {
+      if (action != null) {
+        action.deregister();
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return database.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof DatabaseInfo other) {
+        return database.equals(other.database);
+      }
+      return false;
+    }
+  }
+}
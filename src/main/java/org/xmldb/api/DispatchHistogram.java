@@ -0,0 +1,268 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_DATABASE;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.xmldb.api.base.Database;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
+
+/**
+ * {@link DispatchListener} collecting the attempt latencies per {@link Database} in a histogram of
+ * logarithmic buckets. Each power of two is split into eight buckets, so reported percentiles are
+ * the upper bound of the bucket and exceed the exact value by at most 12.5%.
+ * <p>
+ * Recording a latency only increments a counter and never allocates, so the histogram can stay
+ * registered in production:
+ *
+ * <pre>
+ * DispatchHistogram histogram = new DispatchHistogram();
+ * DatabaseManager.addDispatchListener(histogram);
+ * ...
+ * histogram.getStatistics().forEach((database, statistics) -&gt; ...);
+ * </pre>
+ * <p>
+ * The databases are only weakly referenced, and their statistics are dropped as soon as they are
+ * deregistered from the {@link DatabaseManager} the histogram is registered with.
+ *
+ * @since 3.1
+ */
+public final class DispatchHistogram implements DispatchListener {
+  private final Object lock = new Object();
+  private final LongAdder dispatches = new LongAdder();
+  private final LongAdder unresolved = new LongAdder();
+  private volatile Entry[] entries = new Entry[0];
+
+  @Override
+  public void attemptEnded(XmldbUri uri, Database database, long nanos, XMLDBException error) {
+    Histogram histogram = histogram(database);
+    if (histogram == null) {
+      histogram = add(database);
+    }
+    histogram.record(nanos, error != null);
+  }
+
+  @Override
+  public void databaseDeregistered(Database database) {
+    synchronized (lock) {
+      entries = Arrays.stream(entries)
+          .filter(entry -> entry.get() != null && entry.get() != database).toArray(Entry[]::new);
+    }
+  }
+
+  @Override
+  public void dispatchEnded(XmldbUri uri, Database database, long nanos, XMLDBException error) {
+    dispatches.increment();
+    if (database == null && error != null && error.errorCode == NO_SUCH_DATABASE) {
+      unresolved.increment();
+    }
+  }
+
+  /**
+   * Returns the number of ended dispatches.
+   *
+   * @return the number of dispatches
+   */
+  public long getDispatchCount() {
+    return dispatches.sum();
+  }
+
+  /**
+   * Returns the number of dispatches for which no database accepted the URI.
+   *
+   * @return the number of unresolved dispatches
+   */
+  public long getUnresolvedCount() {
+    return unresolved.sum();
+  }
+
+  /**
+   * Returns the statistics of all databases having been asked to handle a URI.
+   *
+   * @return the statistics per database
+   */
+  public Map<Database, Statistics> getStatistics() {
+    final Map<Database, Statistics> statistics = new HashMap<>();
+    for (Entry entry : entries) {
+      final Database database = entry.get();
+      if (database != null) {
+        statistics.put(database, entry.histogram.statistics());
+      }
+    }
+    return statistics;
+  }
+
+  /**
+   * Returns the statistics of the given database.
+   *
+   * @param database the database
+   * @return the statistics or {@code null} if the database has not been asked yet
+   */
+  public Statistics getStatistics(Database database) {
+    final Histogram histogram = histogram(database);
+    return histogram == null ? null : histogram.statistics();
+  }
+
+  /**
+   * Discards all recorded values.
+   */
+  public void reset() {
+    synchronized (lock) {
+      entries = new Entry[0];
+    }
+    dispatches.reset();
+    unresolved.reset();
+  }
+
+  private Histogram histogram(Database database) {
+    // the number of databases is small, so a scan is cheaper than hashing and never allocates
+    for (Entry entry : entries) {
+      if (entry.get() == database) {
+        return entry.histogram;
+      }
+    }
+    return null;
+  }
+
+  private Histogram add(Database database) {
+    synchronized (lock) {
+      final Histogram existing = histogram(database);
+      if (existing != null) {
+        return existing;
+      }
+      final Entry entry = new Entry(database);
+      final Entry[] retained =
+          Arrays.stream(entries).filter(other -> other.get() != null).toArray(Entry[]::new);
+      final Entry[] added = Arrays.copyOf(retained, retained.length + 1);
+      added[retained.length] = entry;
+      entries = added;
+      return entry.histogram;
+    }
+  }
+
+  /**
+   * Attempt statistics of a single database.
+   *
+   * @param count the number of attempts
+   * @param errors the number of failed attempts
+   * @param p50Nanos the median attempt duration in nanoseconds
+   * @param p99Nanos the 99th percentile of the attempt duration in nanoseconds
+   */
+  public record Statistics(long count, long errors, long p50Nanos, long p99Nanos) {
+  }
+
+  static final class Entry extends WeakReference<Database> {
+    final Histogram histogram;
+
+    Entry(Database database) {
+      super(database);
+      histogram = new Histogram();
+    }
+  }
+
+  static final class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = index(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder errors = new LongAdder();
+
+    void record(long nanos, boolean failed) {
+      counts.incrementAndGet(index(nanos));
+      if (failed) {
+        errors.increment();
+      }
+    }
+
+    Statistics statistics() {
+      final long[] snapshot = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        snapshot[i] = counts.get(i);
+        total += snapshot[i];
+      }
+      return new Statistics(total, errors.sum(), percentile(snapshot, total, 0.5),
+          percentile(snapshot, total, 0.99));
+    }
+
+    static long percentile(long[] snapshot, long total, double quantile) {
+      if (total == 0) {
+        return 0;
+      }
+      final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+      long seen = 0;
+      for (int i = 0; i < snapshot.length; i++) {
+        seen += snapshot[i];
+        if (seen >= rank) {
+          return upperBound(i);
+        }
+      }
+      return upperBound(snapshot.length - 1);
+    }
+
+    static int index(long nanos) {
+      if (nanos < SUB_BUCKETS) {
+        return (int) Math.max(nanos, 0);
+      }
+      final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+      final int shift = exponent - SUB_BUCKET_BITS;
+      return ((shift + 1) << SUB_BUCKET_BITS) | (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long upperBound(int index) {
+      if (index < SUB_BUCKETS) {
+        return index;
+      }
+      final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+      final long bucket = SUB_BUCKETS | (index & (SUB_BUCKETS - 1));
+      final long bound = ((bucket + 1) << shift) - 1;
+      return bound < 0 ? Long.MAX_VALUE : bound;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import org.xmldb.api.base.Database;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
+
+/**
+ * Listener receiving the timings of the dispatch of a URI to the registered databases by the
+ * {@link DatabaseManager}. A dispatch consists of one or more attempts, each asking a single
+ * {@link Database} to handle the URI.
+ * <p>
+ * Listeners are registered using {@link DatabaseManager#addDispatchListener(DispatchListener)} and
+ * are called synchronously by the thread performing the attempt, so they need to be thread safe
+ * and should return quickly. Runtime exceptions thrown by a listener are ignored. As long as no
+ * listener is registered, no timings are taken at all.
+ *
+ * @since 3.1
+ */
+public interface DispatchListener {
+  /**
+   * Called before the given URI is dispatched to the first database.
+   *
+   * @param uri the dispatched URI
+   */
+  default void dispatchStarted(XmldbUri uri) {
+    // nothing to do by default
+  }
+
+  /**
+   * Called after a single database has been asked to handle the given URI.
+   *
+   * @param uri the dispatched URI
+   * @param database the database asked to handle the URI
+   * @param nanos the duration of the attempt in nanoseconds
+   * @param error the error raised by the database or {@code null} on success
+   */
+  default void attemptEnded(XmldbUri uri, Database database, long nanos, XMLDBException error) {
+    // nothing to do by default
+  }
+
+  /**
+   * Called after the dispatch of the given URI has ended.
+   *
+   * @param uri the dispatched URI
+   * @param database the database having handled the URI on success, the first database having
+   *        failed or {@code null} if no database accepted the URI
+   * @param nanos the duration of the whole dispatch in nanoseconds
+   * @param error the reported error or {@code null} on success, which is a
+   *        {@link org.xmldb.api.base.ErrorCodes#NO_SUCH_DATABASE} error if no database accepted the
+   *        URI
+   */
+  default void dispatchEnded(XmldbUri uri, Database database, long nanos, XMLDBException error) {
+    // nothing to do by default
+  }
+
+  /**
+   * Called after the given database has been deregistered, so that state kept for it can be
+   * released.
+   *
+   * @param database the deregistered database, as passed to the other methods
+   */
+  default void databaseDeregistered(Database database) {
+    // nothing to do by default
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.xmldb.api.base.ErrorCodes.UNKNOWN_ERROR;
+
+import org.xmldb.api.DatabaseRegistry.DatabaseFunction;
+import org.xmldb.api.base.Database;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
+
+/**
+ * Records the timings of a single dispatch and reports them to the registered
+ * {@link DispatchListener} instances. A recorder is only created if at least one listener is
+ * registered.
+ */
+final class DispatchRecorder {
+  private final DispatchListener[] listeners;
+  private final XmldbUri uri;
+  private final long started;
+  private volatile Database failed;
+
+  private DispatchRecorder(DispatchListener[] listeners, XmldbUri uri) {
+    this.listeners = listeners;
+    this.uri = uri;
+    this.started = System.nanoTime();
+  }
+
+  /**
+   * Starts recording the dispatch of the given URI.
+   *
+   * @param listeners the registered listeners
+   * @param uri the dispatched URI
+   * @return the started recorder or {@code null} if there are no listeners
+   */
+  static DispatchRecorder start(DispatchListener[] listeners, XmldbUri uri) {
+    if (listeners.length == 0) {
+      return null;
+    }
+    for (DispatchListener listener : listeners) {
+      try {
+        listener.dispatchStarted(uri);
+      } catch (RuntimeException e) {
+        // listeners must not affect the dispatch
+      }
+    }
+    return new DispatchRecorder(listeners, uri);
+  }
+
+  /**
+   * Applies the function to the given database and records the duration of the attempt. Runtime
+   * exceptions and errors thrown by the function are reported to the listeners as
+   * {@link org.xmldb.api.base.ErrorCodes#UNKNOWN_ERROR}.
+   *
+   * @param <T> the result type
+   * @param database the database to be asked
+   * @param function the function to be applied
+   * @return the function result
+   * @throws XMLDBException as thrown by the function
+   */
+  <T> T apply(Database database, DatabaseFunction<T> function) throws XMLDBException {
+    final long start = System.nanoTime();
+    XMLDBException error = null;
+    try {
+      return function.apply(database);
+    } catch (XMLDBException e) {
+      error = e;
+      throw e;
+    } catch (RuntimeException | Error e) {
+      error = new XMLDBException(UNKNOWN_ERROR, e);
+      throw e;
+    } finally {
+      if (error != null && failed == null) {
+        failed = database;
+      }
+      attemptEnded(database, System.nanoTime() - start, error);
+    }
+  }
+
+  /**
+   * Reports the end of the dispatch. The database having handled the URI is passed explicitly, as
+   * further attempts of a hedged dispatch may still succeed after the dispatch has ended.
+   *
+   * @param winner the database having handled the URI, ignored on error
+   * @param error the error reported to the caller or {@code null} on success
+   */
+  void ended(Database winner, XMLDBException error) {
+    final long nanos = System.nanoTime() - started;
+    final Database database = error == null ? winner : failed;
+    for (DispatchListener listener : listeners) {
+      try {
+        listener.dispatchEnded(uri, database, nanos, error);
+      } catch (RuntimeException e) {
+        // listeners must not affect the dispatch
+      }
+    }
+  }
+
+  private void attemptEnded(Database database, long nanos, XMLDBException error) {
+    for (DispatchListener listener : listeners) {
+      try {
+        listener.attemptEnded(uri, database, nanos, error);
+      } catch (RuntimeException e) {
+        // listeners must not affect the dispatch
+      }
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.xmldb.api.DatabaseRegistry.DatabaseInfo;
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.XMLDBException;
+
+/**
+ * Retrieves a {@link Collection} from several databases accepting the same URI by starting the
+ * request on the first candidate and on each further candidate either after the hedging delay has
+ * passed or as soon as a previous attempt has failed. The first successful attempt wins, all
+ * collections returned by later attempts are closed. An attempt fails if the function throws an
+ * {@link XMLDBException} or if the executor rejects it. If all attempts fail, the failure of the
+ * first candidate in candidate order is reported, regardless of the order the attempts failed in,
+ * like the sequential dispatch does. A runtime exception or error thrown by the function is not
+ * caught by the sequential dispatch either, and therefore completes the dispatch immediately. A
+ * candidate not being available when its attempt starts is skipped without calling the function.
+ */
+final class HedgedDispatch {
+  private final List<DatabaseInfo> candidates;
+  private final Predicate<DatabaseInfo> available;
+  private final Supplier<? extends Throwable> unavailable;
+  private final Attempt function;
+  private final Executor executor;
+  private final Executor delayedExecutor;
+  private final CompletableFuture<DatabaseInfo> winner;
+  private final CompletableFuture<Collection> result;
+  private final AtomicInteger next;
+  private final AtomicInteger failures;
+  private final AtomicReferenceArray<Throwable> errors;
+
+  private HedgedDispatch(List<DatabaseInfo> candidates, Predicate<DatabaseInfo> available,
+      Supplier<? extends Throwable> unavailable, Attempt function, Duration delay,
+      Executor executor) {
+    this.candidates = candidates;
+    this.available = available;
+    this.unavailable = unavailable;
+    this.function = function;
+    this.executor = executor;
+    this.delayedExecutor =
+        CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, executor);
+    this.winner = new CompletableFuture<>();
+    this.result = new CompletableFuture<>();
+    this.next = new AtomicInteger();
+    this.failures = new AtomicInteger();
+    this.errors = new AtomicReferenceArray<>(candidates.size());
+  }
+
+  /**
+   * Starts a hedged dispatch over the given candidates.
+   *
+   * @param candidates the databases accepting the URI in the order they are to be tried
+   * @param available the test whether a candidate is available, checked when its attempt starts
+   * @param unavailable the supplier of the failure if all candidates have been skipped
+   * @param function the function retrieving the collection from a candidate
+   * @param delay the delay after which the next candidate is started
+   * @param executor the executor running the attempts
+   * @return the started dispatch
+   */
+  static HedgedDispatch start(List<DatabaseInfo> candidates, Predicate<DatabaseInfo> available,
+      Supplier<? extends Throwable> unavailable, Attempt function, Duration delay,
+      Executor executor) {
+    final HedgedDispatch dispatch =
+        new HedgedDispatch(candidates, available, unavailable, function, delay, executor);
+    dispatch.launchNext();
+    return dispatch;
+  }
+
+  /**
+   * Returns the future completed with the first successfully retrieved collection, with the first
+   * runtime exception or error thrown, or with the failure of the first candidate in candidate
+   * order if all attempts failed. If all candidates have been skipped, the future is completed with
+   * the failure of the unavailable supplier.
+   *
+   * @return the result future
+   */
+  CompletableFuture<Collection> result() {
+    return result;
+  }
+
+  /**
+   * Returns the future completed with the database having delivered the result, or {@code null}
+   * if all attempts failed. It is completed before the result, so it is already done when the
+   * result completes.
+   *
+   * @return the winner future
+   */
+  CompletableFuture<DatabaseInfo> winner() {
+    return winner;
+  }
+
+  private void launchNext() {
+    int index;
+    while ((index = next.get()) < candidates.size()) {
+      if (next.compareAndSet(index, index + 1)) {
+        launch(index);
+        return;
+      }
+    }
+  }
+
+  private void launchAfterDelay(int index) {
+    if (!result.isDone() && next.compareAndSet(index, index + 1)) {
+      launch(index);
+    }
+  }
+
+  private void launch(int index) {
+    if (result.isDone()) {
+      return;
+    }
+    if (index + 1 < candidates.size()) {
+      delayedExecutor.execute(() -> launchAfterDelay(index + 1));
+    }
+    try {
+      executor.execute(() -> attempt(index));
+    } catch (RejectedExecutionException e) {
+      failed(index, e);
+    }
+  }
+
+  private void attempt(int index) {
+    if (result.isDone()) {
+      return;
+    }
+    final DatabaseInfo info = candidates.get(index);
+    if (!available.test(info)) {
+      failed(index, null);
+      return;
+    }
+    try {
+      final Collection collection = function.apply(info);
+      // the winner is decided first, so that it is known once the result completes
+      if ((!winner.complete(info) || !result.complete(collection)) && collection != null) {
+        closeQuietly(collection);
+      }
+    } catch (XMLDBException e) {
+      failed(index, e);
+    } catch (Throwable e) {
+      if (winner.complete(null)) {
+        result.completeExceptionally(e);
+      }
+    }
+  }
+
+  private void failed(int index, Throwable error) {
+    if (error != null) {
+      errors.set(index, error);
+    }
+    if (failures.incrementAndGet() == candidates.size()) {
+      Throwable first = null;
+      for (int i = 0; first == null && i < errors.length(); i++) {
+        first = errors.get(i);
+      }
+      winner.complete(null);
+      result.completeExceptionally(first == null ? unavailable.get() : first);
+    } else {
+      launchNext();
+    }
+  }
+
+  private static void closeQuietly(Collection collection) {
+    try {
+      collection.close();
+    } catch (XMLDBException e) {
+      // the losing collection is not used anyway
+    }
+  }
+
+  @FunctionalInterface
+  interface Attempt {
+    Collection apply(DatabaseInfo info) throws XMLDBException;
+  }
+}
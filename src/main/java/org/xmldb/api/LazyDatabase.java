@@ -0,0 +1,210 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.xmldb.api.base.ErrorCodes.INVALID_DATABASE;
+
+import java.util.Properties;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader.Provider;
+
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.ConnectionOptions;
+import org.xmldb.api.base.Database;
+import org.xmldb.api.base.DatabaseAction;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
+
+/**
+ * {@link Database} discovered through the {@link java.util.ServiceLoader}, which is instantiated
+ * on first use only. If the instantiation fails, the database does not accept any URI and all
+ * other operations fail with {@link org.xmldb.api.base.ErrorCodes#INVALID_DATABASE}, so that the
+ * dispatch continues with the next database.
+ */
+final class LazyDatabase implements Database, DatabaseAction {
+  private final Provider<Database> provider;
+
+  private volatile Database database;
+  private volatile ServiceConfigurationError failure;
+
+  LazyDatabase(Provider<Database> provider) {
+    this.provider = provider;
+  }
+
+  Class<? extends Database> type() {
+    return provider.type();
+  }
+
+  /**
+   * Returns the instance of the given database if it is a lazily instantiated database that has
+   * already been instantiated, or the given database otherwise.
+   *
+   * @param database the registered database
+   * @return the database to be exposed to callers
+   */
+  static Database unwrap(Database database) {
+    if (database instanceof LazyDatabase lazy) {
+      final Database instance = lazy.database;
+      if (instance != null) {
+        return instance;
+      }
+    }
+    return database;
+  }
+
+  /**
+   * Returns whether both databases are provided by the same provider, that is one of them is a
+   * lazily instantiated database and the other one an instance of its provider type.
+   *
+   * @param database the database to be registered
+   * @param registered an already registered database
+   * @return {@code true} if the databases are provided by the same provider
+   */
+  static boolean sameProvider(Database database, Database registered) {
+    if (database instanceof LazyDatabase lazy) {
+      return !(registered instanceof LazyDatabase) && lazy.type() == registered.getClass();
+    }
+    return registered instanceof LazyDatabase lazy && lazy.type() == database.getClass();
+  }
+
+  Database instance() {
+    Database instance = database;
+    if (instance == null && failure == null) {
+      synchronized (this) {
+        instance = database;
+        if (instance == null && failure == null) {
+          try {
+            instance = provider.get();
+            database = instance;
+          } catch (ServiceConfigurationError e) {
+            failure = e;
+          }
+        }
+      }
+    }
+    return instance;
+  }
+
+  private Database database() throws XMLDBException {
+    final Database instance = instance();
+    if (instance == null) {
+      throw new XMLDBException(INVALID_DATABASE,
+          "Failed to instantiate database " + provider.type().getName(), failure);
+    }
+    return instance;
+  }
+
+  @Override
+  public String getName() throws XMLDBException {
+    return database().getName();
+  }
+
+  @Override
+  public Collection getCollection(String uri, Properties info) throws XMLDBException {
+    return database().getCollection(uri, info);
+  }
+
+  @Override
+  public Collection getCollection(String uri, ConnectionOptions options) throws XMLDBException {
+    return database().getCollection(uri, options);
+  }
+
+  @Override
+  public Collection getCollection(XmldbUri uri, ConnectionOptions options) throws XMLDBException {
+    return database().getCollection(uri, options);
+  }
+
+  @Override
+  public boolean acceptsURI(String uri) {
+    final Database instance = instance();
+    return instance != null && instance.acceptsURI(uri);
+  }
+
+  @Override
+  public boolean acceptsURI(XmldbUri uri) {
+    final Database instance = instance();
+    return instance != null && instance.acceptsURI(uri);
+  }
+
+  @Override
+  public String getConformanceLevel() throws XMLDBException {
+    return database().getConformanceLevel();
+  }
+
+  @Override
+  public String getProperty(String name) throws XMLDBException {
+    return database().getProperty(name);
+  }
+
+  @Override
+  public String getProperty(String name, String defaultValue) throws XMLDBException {
+    return database().getProperty(name, defaultValue);
+  }
+
+  @Override
+  public void setProperty(String name, String value) throws XMLDBException {
+    database().setProperty(name, value);
+  }
+
+  @Override
+  public void deregister() {
+    if (database instanceof DatabaseAction action) {
+      action.deregister();
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return provider.type().hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof LazyDatabase other) {
+      return provider.type().equals(other.provider.type());
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "LazyDatabase[" + provider.type().getName() + "]";
+  }
+}
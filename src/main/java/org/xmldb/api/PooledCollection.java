@@ -0,0 +1,310 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.xmldb.api.base.ErrorCodes.COLLECTION_CLOSED;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.ListingPage;
+import org.xmldb.api.base.Resource;
+import org.xmldb.api.base.Service;
+import org.xmldb.api.base.ServiceLease;
+import org.xmldb.api.base.StoreResult;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.modules.XPathQueryService;
+import org.xmldb.api.modules.XQueryService;
+
+/**
+ * Lease on a {@link Collection} held by a {@link CollectionPool}. Closing the lease hands the
+ * underlying collection back to the pool.
+ * <p>
+ * The state changed through the lease is reset before the collection is handed back: properties
+ * set on the collection are restored to their previous values and the declared namespaces and
+ * variables of the services retrieved through the lease are cleared. A collection whose state
+ * could not be reset is not reused.
+ */
+final class PooledCollection implements Collection {
+  private final AtomicReference<Collection> delegate;
+  private final Release release;
+  private final Map<String, String> changedProperties;
+  private final Set<Service> services;
+
+  PooledCollection(Collection delegate, Release release) {
+    this.delegate = new AtomicReference<>(delegate);
+    this.release = release;
+    changedProperties = new HashMap<>();
+    services = Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+
+  private Collection delegate() throws XMLDBException {
+    final Collection collection = delegate.get();
+    if (collection == null) {
+      throw new XMLDBException(COLLECTION_CLOSED);
+    }
+    return collection;
+  }
+
+  @Override
+  public String getName() throws XMLDBException {
+    return delegate().getName();
+  }
+
+  @Override
+  public Collection getParentCollection() throws XMLDBException {
+    return delegate().getParentCollection();
+  }
+
+  @Override
+  public int getChildCollectionCount() throws XMLDBException {
+    return delegate().getChildCollectionCount();
+  }
+
+  @Override
+  public List<String> listChildCollections() throws XMLDBException {
+    return delegate().listChildCollections();
+  }
+
+  @Override
+  public ListingPage listChildCollections(String continuationToken, int pageSize)
+      throws XMLDBException {
+    return delegate().listChildCollections(continuationToken, pageSize);
+  }
+
+  @Override
+  public Stream<String> streamChildCollections(int pageSize) {
+    final Collection collection = delegate.get();
+    if (collection == null) {
+      return Collection.super.streamChildCollections(pageSize);
+    }
+    return collection.streamChildCollections(pageSize);
+  }
+
+  @Override
+  public Collection getChildCollection(String collectionName) throws XMLDBException {
+    return delegate().getChildCollection(collectionName);
+  }
+
+  @Override
+  public int getResourceCount() throws XMLDBException {
+    return delegate().getResourceCount();
+  }
+
+  @Override
+  public List<String> listResources() throws XMLDBException {
+    return delegate().listResources();
+  }
+
+  @Override
+  public ListingPage listResources(String continuationToken, int pageSize) throws XMLDBException {
+    return delegate().listResources(continuationToken, pageSize);
+  }
+
+  @Override
+  public Stream<String> streamResources(int pageSize) {
+    final Collection collection = delegate.get();
+    if (collection == null) {
+      return Collection.super.streamResources(pageSize);
+    }
+    return collection.streamResources(pageSize);
+  }
+
+  @Override
+  public <R extends Resource> R createResource(String id, Class<R> type) throws XMLDBException {
+    return delegate().createResource(id, type);
+  }
+
+  @Override
+  public void removeResource(Resource res) throws XMLDBException {
+    delegate().removeResource(res);
+  }
+
+  @Override
+  public void storeResource(Resource res) throws XMLDBException {
+    delegate().storeResource(res);
+  }
+
+  @Override
+  public List<StoreResult> storeResources(java.util.Collection<? extends Resource> resources)
+      throws XMLDBException {
+    return delegate().storeResources(resources);
+  }
+
+  @Override
+  public Resource getResource(String id) throws XMLDBException {
+    return delegate().getResource(id);
+  }
+
+  @Override
+  public List<Optional<Resource>> getResources(List<String> ids) throws XMLDBException {
+    return delegate().getResources(ids);
+  }
+
+  @Override
+  public String createId() throws XMLDBException {
+    return delegate().createId();
+  }
+
+  @Override
+  public boolean isOpen() throws XMLDBException {
+    final Collection collection = delegate.get();
+    return collection != null && collection.isOpen();
+  }
+
+  @Override
+  public void close() {
+    final Collection collection = delegate.getAndSet(null);
+    if (collection != null) {
+      release.release(collection, reset(collection));
+    }
+  }
+
+  /**
+   * Restores the changed properties and clears the state of the retrieved services.
+   *
+   * @param collection the collection to be handed back
+   * @return {@code true} if the collection can be reused, {@code false} otherwise
+   */
+  private synchronized boolean reset(Collection collection) {
+    try {
+      for (Map.Entry<String, String> property : changedProperties.entrySet()) {
+        collection.setProperty(property.getKey(), property.getValue());
+      }
+      for (Service service : services) {
+        if (service instanceof XQueryService xqueryService) {
+          xqueryService.clearNamespaces();
+          xqueryService.clearVariables();
+        }
+        if (service instanceof XPathQueryService xpathService) {
+          xpathService.clearNamespaces();
+        }
+      }
+      return true;
+    } catch (XMLDBException | RuntimeException e) {
+      return false;
+    } finally {
+      changedProperties.clear();
+      services.clear();
+    }
+  }
+
+  private synchronized <S extends Service> S retrieved(S service) {
+    if (service != null) {
+      services.add(service);
+    }
+    return service;
+  }
+
+  @Override
+  public Instant getCreationTime() throws XMLDBException {
+    return delegate().getCreationTime();
+  }
+
+  @Override
+  public String getProperty(String name) throws XMLDBException {
+    return delegate().getProperty(name);
+  }
+
+  @Override
+  public String getProperty(String name, String defaultValue) throws XMLDBException {
+    return delegate().getProperty(name, defaultValue);
+  }
+
+  @Override
+  public void setProperty(String name, String value) throws XMLDBException {
+    final Collection collection = delegate();
+    synchronized (this) {
+      if (!changedProperties.containsKey(name)) {
+        changedProperties.put(name, collection.getProperty(name));
+      }
+    }
+    collection.setProperty(name, value);
+  }
+
+  @Override
+  public <S extends Service> boolean hasService(Class<S> serviceType) {
+    final Collection collection = delegate.get();
+    return collection != null && collection.hasService(serviceType);
+  }
+
+  @Override
+  public <S extends Service> Optional<S> findService(Class<S> serviceType) {
+    final Collection collection = delegate.get();
+    if (collection == null) {
+      return Optional.empty();
+    }
+    return collection.findService(serviceType).map(this::retrieved);
+  }
+
+  @Override
+  public <S extends Service> S getService(Class<S> serviceType) throws XMLDBException {
+    return retrieved(delegate().getService(serviceType));
+  }
+
+  @Override
+  public <S extends Service> ServiceLease<S> borrowService(Class<S> serviceType)
+      throws XMLDBException {
+    return delegate().borrowService(serviceType);
+  }
+
+  /**
+   * Hands a collection back to its pool.
+   */
+  @FunctionalInterface
+  interface Release {
+    /**
+     * Hands the given collection back.
+     *
+     * @param collection the collection of the closed lease
+     * @param reusable {@code false} if the collection must not be handed out again
+     */
+    void release(Collection collection, boolean reusable);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asynchronous variant of the operations of a {@link Collection}, obtained using
+ * {@link Collection#async(java.util.concurrent.Executor)}. Each operation returns a
+ * {@link CompletionStage}, which completes exceptionally with the same {@link XMLDBException} as
+ * the corresponding blocking operation of the {@link Collection} would throw.
+ * <p>
+ * Drivers supporting non-blocking requests are encouraged to provide a native implementation
+ * allowing many independent operations to be pipelined over a single connection, without needing
+ * a thread per request.
+ *
+ * @since 3.1
+ */
+public interface AsyncCollection {
+  /**
+   * Returns the collection the operations are performed on.
+   *
+   * @return the underlying collection
+   */
+  Collection collection();
+
+  /**
+   * Asynchronously retrieves a {@code Resource} from the database.
+   *
+   * @param id the unique id for the requested resource.
+   * @return A completion stage of the retrieved {@code Resource} instance, completing with
+   *         {@code null} if the {@code Resource} could not be located.
+   * @see Collection#getResource(String)
+   */
+  CompletionStage<Resource> getResource(String id);
+
+  /**
+   * Asynchronously stores the provided resource into the database.
+   *
+   * @param res the resource to store in the database.
+   * @return A completion stage completing when the resource has been stored.
+   * @see Collection#storeResource(Resource)
+   */
+  CompletionStage<Void> storeResource(Resource res);
+
+  /**
+   * Asynchronously removes the {@code Resource} from the database.
+   *
+   * @param res the resource to remove.
+   * @return A completion stage completing when the resource has been removed.
+   * @see Collection#removeResource(Resource)
+   */
+  CompletionStage<Void> removeResource(Resource res);
+
+  /**
+   * Asynchronously returns a list of the ids for all resources stored in the collection.
+   *
+   * @return A completion stage of the names for all {@code Resource}s in the collection.
+   * @see Collection#listResources()
+   */
+  CompletionStage<List<String>> listResources();
+
+  /**
+   * Asynchronously returns a {@code Collection} instance for the requested child collection.
+   *
+   * @param collectionName the name of the child collection to retrieve.
+   * @return A completion stage of the requested child collection, completing with {@code null} if
+   *         it couldn't be found.
+   * @see Collection#getChildCollection(String)
+   */
+  CompletionStage<Collection> getChildCollection(String collectionName);
+}
@@ -39,8 +39,17 @@
  */
 package org.xmldb.api.base;
 
+import static org.xmldb.api.base.ErrorCodes.COLLECTION_CLOSED;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_RESOURCE;
+
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A {@code Collection} represents a collection of {@code Resource}s stored within an XML database.
@@ -97,6 +106,51 @@ public interface Collection extends Configurable, AutoCloseable, ServiceProvider
    */
   List<String> listChildCollections() throws XMLDBException;
 
+  /**
+   * Returns a page of the child collection ids of {@link #listChildCollections()}, starting after
+   * the ids of the page the given continuation token was returned with. Drivers supporting server
+   * side cursors are encouraged to override this method in order to fetch each page lazily.
+   * <p>
+   * The default implementation is a compatibility fallback paging through the list returned by
+   * {@link #listChildCollections()}, using the position of the next id as continuation token. As
+   * it fetches the complete list for each page, listing all pages costs O(n<sup>2</sup>/pageSize).
+   *
+   * @param continuationToken the token of the previous page, or {@code null} for the first page.
+   * @param pageSize the maximum number of ids of the page, used as a hint by drivers.
+   * @return the requested page of child collection ids.
+   * @throws XMLDBException with expected error codes. {@link ErrorCodes#VENDOR_ERROR} for any
+   *         vendor-specific errors that occur. {@link ErrorCodes#COLLECTION_CLOSED} if the
+   *         {@code close} method has been called on the {@code Collection}
+   * @throws IllegalArgumentException if the page size is not positive or the continuation token is
+   *         not valid.
+   *
+   * @since 3.1
+   */
+  default ListingPage listChildCollections(String continuationToken, int pageSize)
+      throws XMLDBException {
+    return ListingPage.of(listChildCollections(), continuationToken, pageSize);
+  }
+
+  /**
+   * Returns a lazily populated stream of the child collection ids. Errors fetching the ids are
+   * thrown by the terminal operation of the stream as {@link UncheckedXMLDBException}.
+   * <p>
+   * The default implementation fetches the complete {@link #listChildCollections()} once when the
+   * stream is consumed. Drivers overriding {@link #listChildCollections(String, int)} in order to
+   * fetch pages lazily should override this method as well, returning
+   * {@code ListingPage.stream(this::listChildCollections, pageSize)}.
+   *
+   * @param pageSize the maximum number of ids fetched at a time, used as a hint by drivers.
+   * @return the stream of child collection ids.
+   * @throws IllegalArgumentException if the page size is not positive.
+   *
+   * @since 3.1
+   */
+  default Stream<String> streamChildCollections(int pageSize) {
+    return StreamSupport.stream(new ListingSpliterator(this::listChildCollections, pageSize),
+        false);
+  }
+
   /**
    * Returns a {@code Collection} instance for the requested child collection if it exists.
    *
@@ -132,6 +186,49 @@ public interface Collection extends Configurable, AutoCloseable, ServiceProvider
    */
   List<String> listResources() throws XMLDBException;
 
+  /**
+   * Returns a page of the resource ids of {@link #listResources()}, starting after the ids of the
+   * page the given continuation token was returned with. Drivers supporting server side cursors are
+   * encouraged to override this method in order to fetch each page lazily.
+   * <p>
+   * The default implementation is a compatibility fallback paging through the list returned by
+   * {@link #listResources()}, using the position of the next id as continuation token. As it
+   * fetches the complete list for each page, listing all pages costs O(n<sup>2</sup>/pageSize).
+   *
+   * @param continuationToken the token of the previous page, or {@code null} for the first page.
+   * @param pageSize the maximum number of ids of the page, used as a hint by drivers.
+   * @return the requested page of resource ids.
+   * @throws XMLDBException with expected error codes. {@link ErrorCodes#VENDOR_ERROR} for any
+   *         vendor-specific errors that occur. {@link ErrorCodes#COLLECTION_CLOSED} if the
+   *         {@code close} method has been called on the {@code Collection}
+   * @throws IllegalArgumentException if the page size is not positive or the continuation token is
+   *         not valid.
+   *
+   * @since 3.1
+   */
+  default ListingPage listResources(String continuationToken, int pageSize) throws XMLDBException {
+    return ListingPage.of(listResources(), continuationToken, pageSize);
+  }
+
+  /**
+   * Returns a lazily populated stream of the resource ids. Errors fetching the ids are thrown by
+   * the terminal operation of the stream as {@link UncheckedXMLDBException}.
+   * <p>
+   * The default implementation fetches the complete {@link #listResources()} once when the stream
+   * is consumed. Drivers overriding {@link #listResources(String, int)} in order to fetch pages
+   * lazily should override this method as well, returning
+   * {@code ListingPage.stream(this::listResources, pageSize)}.
+   *
+   * @param pageSize the maximum number of ids fetched at a time, used as a hint by drivers.
+   * @return the stream of resource ids.
+   * @throws IllegalArgumentException if the page size is not positive.
+   *
+   * @since 3.1
+   */
+  default Stream<String> streamResources(int pageSize) {
+    return StreamSupport.stream(new ListingSpliterator(this::listResources, pageSize), false);
+  }
+
   /**
    * Creates a new empty {@code Resource} with the provided id. The type of {@code Resource}
    * returned is determined by the {@code type} class parameter. If {@code id} is {@code null} or
@@ -177,6 +274,44 @@ public interface Collection extends Configurable, AutoCloseable, ServiceProvider
    */
   void storeResource(Resource res) throws XMLDBException;
 
+  /**
+   * Stores the provided resources into the database, as if {@link #storeResource(Resource)} was
+   * called for each of them. A resource failing to be stored does not abort the batch, instead its
+   * failure is reported by the corresponding {@link StoreResult}.
+   * <p>
+   * The default implementation stores the resources one by one. Drivers are encouraged to override
+   * this method with a pipelined or batched implementation avoiding a round trip per resource.
+   *
+   * @param resources the resources to store in the database.
+   * @return the results of each resource in the iteration order of {@code resources}.
+   * @throws XMLDBException with expected error codes. {@link ErrorCodes#VENDOR_ERROR} for any
+   *         vendor-specific errors affecting the whole batch. {@link ErrorCodes#COLLECTION_CLOSED}
+   *         if the {@code close} method has been called on the {@code Collection}
+   * @throws NullPointerException if {@code resources} contains a {@code null} element, in which
+   *         case no resource is stored.
+   *
+   * @since 3.1
+   */
+  default List<StoreResult> storeResources(java.util.Collection<? extends Resource> resources)
+      throws XMLDBException {
+    for (Resource resource : resources) {
+      Objects.requireNonNull(resource, "resource");
+    }
+    final List<StoreResult> results = new ArrayList<>(resources.size());
+    for (Resource resource : resources) {
+      try {
+        storeResource(resource);
+        results.add(StoreResult.success(resource));
+      } catch (XMLDBException e) {
+        if (e.errorCode == COLLECTION_CLOSED) {
+          throw e;
+        }
+        results.add(StoreResult.failure(resource, e));
+      }
+    }
+    return results;
+  }
+
   /**
    * Retrieves a {@code Resource} from the database. If the {@code Resource} could not be located a
    * {@code null} value will be returned.
@@ -189,6 +324,38 @@ public interface Collection extends Configurable, AutoCloseable, ServiceProvider
    */
   Resource getResource(String id) throws XMLDBException;
 
+  /**
+   * Retrieves the {@code Resource}s with the given ids from the database, as if
+   * {@link #getResource(String)} was called for each of them.
+   * <p>
+   * The default implementation retrieves the resources one by one. Drivers are encouraged to
+   * override this method with an implementation retrieving all resources in a single round trip.
+   *
+   * @param ids the unique ids of the requested resources.
+   * @return the retrieved resources in the order of {@code ids}, containing an empty optional for
+   *         each {@code Resource} that could not be located, whether {@link #getResource(String)}
+   *         returned {@code null} or failed with {@link ErrorCodes#NO_SUCH_RESOURCE}.
+   * @throws XMLDBException with expected error codes. {@link ErrorCodes#VENDOR_ERROR} for any
+   *         vendor-specific errors that occur. {@link ErrorCodes#COLLECTION_CLOSED} if the
+   *         {@code close} method has been called on the {@code Collection}
+   *
+   * @since 3.1
+   */
+  default List<Optional<Resource>> getResources(List<String> ids) throws XMLDBException {
+    final List<Optional<Resource>> resources = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      try {
+        resources.add(Optional.ofNullable(getResource(id)));
+      } catch (XMLDBException e) {
+        if (e.errorCode != NO_SUCH_RESOURCE) {
+          throw e;
+        }
+        resources.add(Optional.empty());
+      }
+    }
+    return resources;
+  }
+
   /**
    * Creates a new unique ID within the context of the {@code Collection}
    *
@@ -232,4 +399,22 @@ public interface Collection extends Configurable, AutoCloseable, ServiceProvider
    * @since 2.0
    */
   Instant getCreationTime() throws XMLDBException;
+
+  /**
+   * Returns an asynchronous view of this collection. Drivers supporting non-blocking requests are
+   * encouraged to override this method with a native implementation, which may use the given
+   * executor for callbacks only or ignore it.
+   * <p>
+   * The default implementation runs the blocking operations of this collection using the given
+   * executor. As operations may then run concurrently, the executor should run them one at a time
+   * if this collection is not thread safe.
+   *
+   * @param executor the executor used to run the operations
+   * @return the asynchronous view of this collection
+   *
+   * @since 3.1
+   */
+  default AsyncCollection async(Executor executor) {
+    return new ExecutorAsyncCollection(this, executor);
+  }
 }
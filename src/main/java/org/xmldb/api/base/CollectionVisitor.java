@@ -0,0 +1,112 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import static java.nio.file.FileVisitResult.CONTINUE;
+
+import java.nio.file.FileVisitResult;
+
+/**
+ * A visitor of the collections of a collection hierarchy, walked using a {@link CollectionWalker}.
+ * Similar to a {@link java.nio.file.FileVisitor}, the result of each method controls how the walk
+ * continues:
+ * <ul>
+ * <li>{@link FileVisitResult#CONTINUE} continues the walk.</li>
+ * <li>{@link FileVisitResult#SKIP_SUBTREE} returned by
+ * {@link #preVisitCollection(Collection, int)} skips the child collections of the collection.</li>
+ * <li>{@link FileVisitResult#SKIP_SIBLINGS} skips the remaining siblings of the collection and,
+ * when returned by {@link #preVisitCollection(Collection, int)}, its child collections.</li>
+ * <li>{@link FileVisitResult#TERMINATE} terminates the walk.</li>
+ * </ul>
+ * The collections passed to the visitor are only valid during the call, as they are closed by the
+ * walker after their child collections have been visited. Visitors used for a parallel walk are
+ * called concurrently and therefore need to be thread safe.
+ *
+ * @since 3.1
+ */
+public interface CollectionVisitor {
+  /**
+   * Invoked for a collection before its child collections are visited.
+   *
+   * @param collection the visited collection
+   * @param depth the depth of the collection, {@code 0} for the collection the walk started at
+   * @return the visit result, {@link FileVisitResult#CONTINUE} by default
+   * @throws XMLDBException if an error occurs, which terminates the walk
+   */
+  default FileVisitResult preVisitCollection(Collection collection, int depth)
+      throws XMLDBException {
+    return CONTINUE;
+  }
+
+  /**
+   * Invoked for a collection after all its child collections have been visited, or have been
+   * skipped.
+   *
+   * @param collection the visited collection
+   * @param depth the depth of the collection, {@code 0} for the collection the walk started at
+   * @param error {@code null} if the child collections have been listed successfully, otherwise
+   *        the error having occurred listing them
+   * @return the visit result, {@link FileVisitResult#CONTINUE} by default
+   * @throws XMLDBException if an error occurs, which terminates the walk. The default
+   *         implementation throws the given listing error, if any.
+   */
+  default FileVisitResult postVisitCollection(Collection collection, int depth,
+      XMLDBException error) throws XMLDBException {
+    if (error != null) {
+      throw error;
+    }
+    return CONTINUE;
+  }
+
+  /**
+   * Invoked for a child collection that could not be retrieved.
+   *
+   * @param parent the parent collection
+   * @param name the name of the child collection
+   * @param error the error having occurred retrieving the child collection
+   * @return the visit result
+   * @throws XMLDBException if an error occurs, which terminates the walk. The default
+   *         implementation throws the given error.
+   */
+  default FileVisitResult visitCollectionFailed(Collection parent, String name,
+      XMLDBException error) throws XMLDBException {
+    throw error;
+  }
+}
@@ -0,0 +1,419 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SIBLINGS;
+import static java.nio.file.FileVisitResult.TERMINATE;
+import static org.xmldb.api.base.ErrorCodes.UNKNOWN_ERROR;
+
+import java.nio.file.FileVisitResult;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Walks a collection hierarchy calling a {@link CollectionVisitor} for each collection, either
+ * sequentially in depth first order or in parallel with a bounded number of concurrently visited
+ * collections:
+ *
+ * <pre>
+ * CollectionWalker.parallel(16).withMaxDepth(3).walk(root, new CollectionVisitor() {
+ *   &#64;Override
+ *   public FileVisitResult preVisitCollection(Collection collection, int depth)
+ *       throws XMLDBException {
+ *     System.out.println(collection.getName());
+ *     return FileVisitResult.CONTINUE;
+ *   }
+ * });
+ * </pre>
+ * <p>
+ * The walker retrieves each child collection using {@link Collection#getChildCollection(String)}
+ * and closes it after the child collection and all its descendants have been visited. The
+ * collection the walk starts at is not closed. During a parallel walk, the child collections of
+ * the same parent are retrieved one at a time, so that each collection is only used by a single
+ * thread at a time.
+ *
+ * @since 3.1
+ */
+public final class CollectionWalker {
+  private final int maxDepth;
+  private final int maxConcurrency;
+  private final Executor executor;
+
+  private CollectionWalker(int maxDepth, int maxConcurrency, Executor executor) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+    }
+    if (maxConcurrency <= 0) {
+      throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+    }
+    this.maxDepth = maxDepth;
+    this.maxConcurrency = maxConcurrency;
+    this.executor = executor;
+  }
+
+  /**
+   * Returns a walker visiting the collections one after the other in depth first order within the
+   * calling thread.
+   *
+   * @return the sequential walker
+   */
+  public static CollectionWalker sequential() {
+    return new CollectionWalker(Integer.MAX_VALUE, 1, null);
+  }
+
+  /**
+   * Returns a walker visiting up to the given number of collections concurrently, using a
+   * {@link ForkJoinPool} created for each walk.
+   *
+   * @param maxConcurrency the maximum number of collections visited concurrently
+   * @return the parallel walker
+   * @throws IllegalArgumentException if the maximum concurrency is not positive
+   */
+  public static CollectionWalker parallel(int maxConcurrency) {
+    return new CollectionWalker(Integer.MAX_VALUE, maxConcurrency, null);
+  }
+
+  /**
+   * Returns a walker visiting up to the given number of collections concurrently using the given
+   * executor, for example a virtual thread per task executor.
+   *
+   * @param executor the executor running the visits
+   * @param maxConcurrency the maximum number of collections visited concurrently
+   * @return the parallel walker
+   * @throws IllegalArgumentException if the maximum concurrency is not positive
+   */
+  public static CollectionWalker parallel(Executor executor, int maxConcurrency) {
+    return new CollectionWalker(Integer.MAX_VALUE, maxConcurrency,
+        Objects.requireNonNull(executor, "executor"));
+  }
+
+  /**
+   * Returns a walker with the same settings visiting collections up to the given depth only. The
+   * collection the walk starts at has the depth {@code 0}, the child collections of collections at
+   * the maximum depth are not visited.
+   *
+   * @param maxDepth the maximum depth of visited collections
+   * @return the depth limited walker
+   * @throws IllegalArgumentException if the maximum depth is negative
+   */
+  public CollectionWalker withMaxDepth(int maxDepth) {
+    return new CollectionWalker(maxDepth, maxConcurrency, executor);
+  }
+
+  /**
+   * Walks the collection hierarchy starting at the given collection, returning after all visited
+   * collections have been closed.
+   *
+   * @param start the collection to start the walk at
+   * @param visitor the visitor to call for each collection
+   * @throws XMLDBException the first error thrown by the visitor, retrieving or closing a
+   *         collection. {@link ErrorCodes#UNKNOWN_ERROR} if the calling thread has been interrupted
+   *         while waiting for a parallel walk to complete.
+   * @throws RuntimeException the first runtime exception thrown during the walk
+   * @throws Error the first error thrown during the walk, also if thrown on a thread of a parallel
+   *         walk
+   */
+  public void walk(Collection start, CollectionVisitor visitor) throws XMLDBException {
+    Objects.requireNonNull(start, "start");
+    Objects.requireNonNull(visitor, "visitor");
+    if (maxConcurrency == 1 && executor == null) {
+      walkSequential(start, 0, visitor);
+      return;
+    }
+    final ExecutorService owned = executor == null ? new ForkJoinPool(maxConcurrency) : null;
+    try {
+      new ParallelWalk(visitor, owned == null ? executor : owned).walk(start);
+    } finally {
+      if (owned != null) {
+        owned.shutdown();
+      }
+    }
+  }
+
+  private FileVisitResult walkSequential(Collection collection, int depth,
+      CollectionVisitor visitor) throws XMLDBException {
+    final FileVisitResult preVisit = visitor.preVisitCollection(collection, depth);
+    if (preVisit != CONTINUE) {
+      return preVisit == SKIP_SIBLINGS || preVisit == TERMINATE ? preVisit : CONTINUE;
+    }
+    XMLDBException error = null;
+    if (depth < maxDepth) {
+      List<String> names;
+      try {
+        names = collection.listChildCollections();
+      } catch (XMLDBException e) {
+        error = e;
+        names = List.of();
+      }
+      for (String name : names) {
+        final FileVisitResult result = walkChild(collection, name, depth + 1, visitor);
+        if (result == TERMINATE) {
+          return TERMINATE;
+        }
+        if (result == SKIP_SIBLINGS) {
+          break;
+        }
+      }
+    }
+    final FileVisitResult postVisit = visitor.postVisitCollection(collection, depth, error);
+    return postVisit == SKIP_SIBLINGS || postVisit == TERMINATE ? postVisit : CONTINUE;
+  }
+
+  private FileVisitResult walkChild(Collection parent, String name, int depth,
+      CollectionVisitor visitor) throws XMLDBException {
+    final Collection child;
+    try {
+      child = parent.getChildCollection(name);
+    } catch (XMLDBException e) {
+      return visitor.visitCollectionFailed(parent, name, e);
+    }
+    if (child == null) {
+      // removed since listing the child collections
+      return CONTINUE;
+    }
+    try (child) {
+      return walkSequential(child, depth, visitor);
+    }
+  }
+
+  /**
+   * State of a single parallel walk.
+   */
+  final class ParallelWalk {
+    private final CollectionVisitor visitor;
+    private final Executor executor;
+    private final Semaphore permits;
+    private final CompletableFuture<Void> done;
+    private final AtomicReference<Throwable> failure;
+
+    private volatile boolean terminated;
+
+    ParallelWalk(CollectionVisitor visitor, Executor executor) {
+      this.visitor = visitor;
+      this.executor = executor;
+      permits = new Semaphore(maxConcurrency);
+      done = new CompletableFuture<>();
+      failure = new AtomicReference<>();
+    }
+
+    void walk(Collection start) throws XMLDBException {
+      final Node root = new Node(null, null, 0);
+      root.collection = start;
+      submit(root);
+      try {
+        done.get();
+      } catch (InterruptedException e) {
+        terminated = true;
+        Thread.currentThread().interrupt();
+        throw new XMLDBException(UNKNOWN_ERROR, "Interrupted while walking collections", e);
+      } catch (ExecutionException e) {
+        throw new XMLDBException(UNKNOWN_ERROR, e.getCause());
+      }
+      final Throwable error = failure.get();
+      if (error instanceof XMLDBException xmldbException) {
+        throw xmldbException;
+      }
+      if (error instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (error instanceof Error fatal) {
+        throw fatal;
+      }
+      if (error != null) {
+        throw new XMLDBException(UNKNOWN_ERROR, error);
+      }
+    }
+
+    /**
+     * Submits the visit of the given node to the executor if a permit is available. Otherwise the
+     * permits are all held by running visits, including the one of the calling thread, so the
+     * node is visited inline instead of blocking the calling thread until a permit is released.
+     */
+    private void submit(Node node) {
+      if (!permits.tryAcquire()) {
+        run(node);
+        return;
+      }
+      try {
+        executor.execute(() -> {
+          try {
+            run(node);
+          } finally {
+            permits.release();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        permits.release();
+        fail(e);
+        complete(node);
+      }
+    }
+
+    private void run(Node node) {
+      try {
+        visit(node);
+      } catch (Throwable e) {
+        fail(e);
+      } finally {
+        complete(node);
+      }
+    }
+
+    private void visit(Node node) throws XMLDBException {
+      final Node parent = node.parent;
+      if (terminated || parent != null && parent.skipChildren) {
+        return;
+      }
+      if (parent != null) {
+        try {
+          synchronized (parent) {
+            node.collection = parent.collection.getChildCollection(node.name);
+          }
+        } catch (XMLDBException e) {
+          handle(parent, visitor.visitCollectionFailed(parent.collection, node.name, e));
+          return;
+        }
+        if (node.collection == null) {
+          // removed since listing the child collections
+          return;
+        }
+      }
+      final FileVisitResult preVisit = visitor.preVisitCollection(node.collection, node.depth);
+      if (preVisit != CONTINUE) {
+        handle(parent, preVisit);
+        return;
+      }
+      node.visited = true;
+      if (node.depth < maxDepth) {
+        final List<String> names;
+        try {
+          names = node.collection.listChildCollections();
+        } catch (XMLDBException e) {
+          node.error = e;
+          return;
+        }
+        node.pending.addAndGet(names.size());
+        for (String name : names) {
+          submit(new Node(node, name, node.depth + 1));
+        }
+      }
+    }
+
+    private void handle(Node parent, FileVisitResult result) {
+      if (result == TERMINATE) {
+        terminated = true;
+      } else if (result == SKIP_SIBLINGS && parent != null) {
+        parent.skipChildren = true;
+      }
+    }
+
+    /**
+     * Marks the visit of the given node as completed, post visiting and closing each collection
+     * whose descendants have all been completed, up to the collection the walk started at.
+     */
+    private void complete(Node node) {
+      Node current = node;
+      while (current != null && current.pending.decrementAndGet() == 0) {
+        finish(current);
+        current = current.parent;
+      }
+      if (current == null) {
+        done.complete(null);
+      }
+    }
+
+    private void finish(Node node) {
+      try {
+        if (node.visited && !terminated) {
+          handle(node.parent,
+              visitor.postVisitCollection(node.collection, node.depth, node.error));
+        }
+      } catch (Throwable e) {
+        fail(e);
+      } finally {
+        if (node.parent != null && node.collection != null) {
+          try {
+            node.collection.close();
+          } catch (Throwable e) {
+            fail(e);
+          }
+        }
+      }
+    }
+
+    private void fail(Throwable error) {
+      failure.compareAndSet(null, error);
+      terminated = true;
+    }
+  }
+
+  /**
+   * A collection of a parallel walk, completed once the collection itself and all its child
+   * collections have been completed.
+   */
+  static final class Node {
+    final Node parent;
+    final String name;
+    final int depth;
+    final AtomicInteger pending;
+
+    Collection collection;
+    boolean visited;
+    XMLDBException error;
+    volatile boolean skipChildren;
+
+    Node(Node parent, String name, int depth) {
+      this.parent = parent;
+      this.name = name;
+      this.depth = depth;
+      pending = new AtomicInteger(1);
+    }
+  }
+}
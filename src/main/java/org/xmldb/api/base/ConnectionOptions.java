@@ -0,0 +1,257 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Immutable set of connection options passed to {@link Database#getCollection(String,
+ * ConnectionOptions)}. In contrast to {@link Properties}, options are accessed using typed
+ * {@link Key} constants mapped directly to a slot of the internal value array, which requires
+ * neither hashing nor synchronization.
+ * <p>
+ * Databases not implementing {@link Database#getCollection(String, ConnectionOptions)} receive the
+ * options converted by {@link #toProperties()}.
+ *
+ * @since 3.1
+ */
+public final class ConnectionOptions {
+  /**
+   * The user name used for authentication.
+   */
+  public static final Key<String> USER = new Key<>("user", String.class, 0);
+  /**
+   * The password used for authentication.
+   */
+  public static final Key<String> PASSWORD = new Key<>("password", String.class, 1);
+  /**
+   * The maximum time to wait for a connection to be established.
+   */
+  public static final Key<Duration> CONNECT_TIMEOUT =
+      new Key<>("connectTimeout", Duration.class, 2);
+  /**
+   * The maximum time to wait for a response of the database.
+   */
+  public static final Key<Duration> READ_TIMEOUT = new Key<>("readTimeout", Duration.class, 3);
+  /**
+   * The number of resources to be fetched at once.
+   */
+  public static final Key<Integer> FETCH_SIZE = new Key<>("fetchSize", Integer.class, 4);
+
+  private static final List<Key<?>> KEYS =
+      List.of(USER, PASSWORD, CONNECT_TIMEOUT, READ_TIMEOUT, FETCH_SIZE);
+
+  /**
+   * Connection options without any value set.
+   */
+  public static final ConnectionOptions EMPTY = new ConnectionOptions(new Object[KEYS.size()]);
+
+  private final Object[] values;
+
+  private ConnectionOptions(Object[] values) {
+    this.values = values;
+  }
+
+  /**
+   * Returns connection options containing the given user and password.
+   *
+   * @param user the user name or {@code null}
+   * @param password the password or {@code null}
+   * @return the connection options
+   */
+  public static ConnectionOptions of(String user, String password) {
+    if (user == null && password == null) {
+      return EMPTY;
+    }
+    final Object[] values = new Object[KEYS.size()];
+    values[USER.index] = user;
+    values[PASSWORD.index] = password;
+    return new ConnectionOptions(values);
+  }
+
+  /**
+   * Returns the keys of all supported connection options.
+   *
+   * @return the supported keys
+   */
+  public static List<Key<?>> keys() {
+    return KEYS;
+  }
+
+  /**
+   * Returns a copy of these options with the given option set.
+   *
+   * @param <T> the value type
+   * @param key the option key
+   * @param value the new value or {@code null} to remove the option
+   * @return the new connection options
+   */
+  public <T> ConnectionOptions with(Key<T> key, T value) {
+    if (Objects.equals(values[key.index], value)) {
+      return this;
+    }
+    final Object[] copy = values.clone();
+    copy[key.index] = value;
+    return new ConnectionOptions(copy);
+  }
+
+  /**
+   * Returns the value of the given option.
+   *
+   * @param <T> the value type
+   * @param key the option key
+   * @return the option value or {@code null} if not set
+   */
+  public <T> T get(Key<T> key) {
+    return key.type.cast(values[key.index]);
+  }
+
+  /**
+   * Returns the user name used for authentication.
+   *
+   * @return the user name or {@code null} if not set
+   */
+  public String user() {
+    return get(USER);
+  }
+
+  /**
+   * Returns the password used for authentication.
+   *
+   * @return the password or {@code null} if not set
+   */
+  public String password() {
+    return get(PASSWORD);
+  }
+
+  /**
+   * Converts these options to {@link Properties}, using the key names as property names. Durations
+   * are converted to milliseconds.
+   *
+   * @return a new properties instance containing all set options
+   */
+  public Properties toProperties() {
+    final Properties properties = new Properties();
+    for (Key<?> key : KEYS) {
+      final Object value = values[key.index];
+      if (value instanceof Duration duration) {
+        properties.setProperty(key.name, Long.toString(duration.toMillis()));
+      } else if (value != null) {
+        properties.setProperty(key.name, value.toString());
+      }
+    }
+    return properties;
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj instanceof ConnectionOptions other) {
+      return Arrays.equals(values, other.values);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("ConnectionOptions[");
+    for (Key<?> key : KEYS) {
+      final Object value = values[key.index];
+      if (value != null) {
+        if (sb.charAt(sb.length() - 1) != '[') {
+          sb.append(", ");
+        }
+        sb.append(key.name).append('=').append(key == PASSWORD ? "***" : value);
+      }
+    }
+    return sb.append(']').toString();
+  }
+
+  /**
+   * Typed key of a connection option.
+   *
+   * @param <T> the value type
+   */
+  public static final class Key<T> {
+    private final String name;
+    private final Class<T> type;
+    private final int index;
+
+    private Key(String name, Class<T> type, int index) {
+      this.name = name;
+      this.type = type;
+      this.index = index;
+    }
+
+    /**
+     * Returns the name of the option, as used for the {@link Properties} conversion.
+     *
+     * @return the option name
+     */
+    public String name() {
+      return name;
+    }
+
+    /**
+     * Returns the value type of the option.
+     *
+     * @return the value type
+     */
+    public Class<T> type() {
+      return type;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
@@ -66,6 +66,12 @@ import java.util.Properties;
  * <p>
  * {@code Class.forName("foo.bah.Database")}
  * <p>
+ * Alternatively a {@code Database} can be provided using the {@link java.util.ServiceLoader}
+ * mechanism by listing it in {@code META-INF/services/org.xmldb.api.base.Database}. Those databases
+ * are registered by the {@code DatabaseManager} itself and are only instantiated on first use. A
+ * provided {@code Database} should declare the URI prefixes it handles using the
+ * {@link DatabaseDriver} annotation and must not register itself.
+ * <p>
  * A {@code Database} may create a {@linkplain DatabaseAction} implementation in order to receive
  * notifications when {@linkplain org.xmldb.api.DatabaseManager#deregisterDatabase} has been called.
  */
@@ -108,6 +114,51 @@ public interface Database extends Configurable {
    */
   Collection getCollection(String uri, Properties info) throws XMLDBException;
 
+  /**
+   * Attempts to make a connection to the given database URI and return its root {@code Collection}
+   * using the given typed connection options. See {@link #getCollection(String, Properties)} for
+   * the details.
+   * <p>
+   * The default implementation converts the options using {@link ConnectionOptions#toProperties()}
+   * and calls {@link #getCollection(String, Properties)}. Implementations should override this
+   * method to avoid the conversion.
+   *
+   * @param uri the URI of the database to which to connect and return the root collection
+   * @param options the connection options
+   * @return a {@code Collection} object that represents a connection to the URI
+   * @throws XMLDBException with expected error codes. {@link ErrorCodes#VENDOR_ERROR} for any
+   *         vendor specific errors that occur. {@link ErrorCodes#INVALID_URI} If the URI is not in
+   *         a valid format. {@link ErrorCodes#PERMISSION_DENIED} If the {@code username} and
+   *         {@code password} were not accepted by the database.
+   * @since 3.1
+   */
+  default Collection getCollection(String uri, ConnectionOptions options) throws XMLDBException {
+    return getCollection(uri, options.toProperties());
+  }
+
+  /**
+   * Attempts to make a connection to the given already parsed database URI and return its root
+   * {@code Collection} using the given typed connection options. See
+   * {@link #getCollection(String, Properties)} for the details.
+   * <p>
+   * The default implementation calls {@link #getCollection(String, ConnectionOptions)} with the
+   * original URI. Implementations should override this method to use the parsed URI parts instead
+   * of parsing the URI again.
+   *
+   * @param uri the parsed URI of the database to which to connect and return the root collection
+   * @param options the connection options
+   * @return a {@code Collection} object that represents a connection to the URI
+   * @throws XMLDBException with expected error codes. {@link ErrorCodes#VENDOR_ERROR} for any
+   *         vendor specific errors that occur. {@link ErrorCodes#INVALID_URI} If the URI is not in
+   *         a valid format. {@link ErrorCodes#PERMISSION_DENIED} If the {@code username} and
+   *         {@code password} were not accepted by the database.
+   * @since 3.1
+   */
+  default Collection getCollection(XmldbUri uri, ConnectionOptions options)
+      throws XMLDBException {
+    return getCollection(uri.toString(), options);
+  }
+
   /**
    * acceptsURI determines whether this {@link Database} implementation can handle the URI. It
    * should return {@code true} if the Database instance knows how to handle the URI and
@@ -118,6 +169,22 @@ public interface Database extends Configurable {
    */
   boolean acceptsURI(String uri);
 
+  /**
+   * Determines whether this {@link Database} implementation can handle the given already parsed
+   * URI.
+   * <p>
+   * The default implementation calls {@link #acceptsURI(String)} with the original URI.
+   * Implementations should override this method to use the parsed URI parts instead of parsing the
+   * URI again.
+   *
+   * @param uri the parsed URI to check for.
+   * @return {@code true} if the URI can be handled, {@code false} otherwise.
+   * @since 3.1
+   */
+  default boolean acceptsURI(XmldbUri uri) {
+    return acceptsURI(uri.toString());
+  }
+
   /**
    * Returns the XML:DB API Conformance level for the implementation. This can be used by client
    * programs to determine what functionality is available to them.
@@ -0,0 +1,118 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link AsyncCollection} running the blocking operations of a {@link Collection} using an
+ * {@link Executor}.
+ */
+final class ExecutorAsyncCollection implements AsyncCollection {
+  private final Collection collection;
+  private final Executor executor;
+
+  ExecutorAsyncCollection(Collection collection, Executor executor) {
+    this.collection = Objects.requireNonNull(collection, "collection");
+    this.executor = Objects.requireNonNull(executor, "executor");
+  }
+
+  @Override
+  public Collection collection() {
+    return collection;
+  }
+
+  @Override
+  public CompletionStage<Resource> getResource(String id) {
+    return supplyAsync(() -> collection.getResource(id));
+  }
+
+  @Override
+  public CompletionStage<Void> storeResource(Resource res) {
+    return supplyAsync(() -> {
+      collection.storeResource(res);
+      return null;
+    });
+  }
+
+  @Override
+  public CompletionStage<Void> removeResource(Resource res) {
+    return supplyAsync(() -> {
+      collection.removeResource(res);
+      return null;
+    });
+  }
+
+  @Override
+  public CompletionStage<List<String>> listResources() {
+    return supplyAsync(collection::listResources);
+  }
+
+  @Override
+  public CompletionStage<Collection> getChildCollection(String collectionName) {
+    return supplyAsync(() -> collection.getChildCollection(collectionName));
+  }
+
+  private <T> CompletionStage<T> supplyAsync(final CollectionCall<T> call) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        try {
+          future.complete(call.call());
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  @FunctionalInterface
+  interface CollectionCall<T> {
+    T call() throws XMLDBException;
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A page of ids returned by a paged listing of a {@link Collection}, like
+ * {@link Collection#listResources(String, int)}. The continuation token of the page is passed to
+ * the next listing call in order to resume the listing after the ids of this page.
+ *
+ * @param ids the ids of this page
+ * @param continuationToken the opaque token to fetch the next page, or {@code null} if this is the
+ *        last page
+ * @since 3.1
+ */
+public record ListingPage(List<String> ids, String continuationToken) {
+  /**
+   * Validates and copies the page values.
+   *
+   * @param ids the ids of this page
+   * @param continuationToken the opaque token to fetch the next page, or {@code null} if this is
+   *        the last page
+   */
+  public ListingPage {
+    ids = List.copyOf(Objects.requireNonNull(ids, "ids"));
+  }
+
+  /**
+   * Returns whether more pages are available after this page.
+   *
+   * @return {@code true} if a next page can be fetched using the continuation token
+   */
+  public boolean hasMore() {
+    return continuationToken != null;
+  }
+
+  /**
+   * Returns the page of the given complete list of ids, starting at the position given by the
+   * continuation token. Used by drivers not able to fetch pages lazily.
+   *
+   * @param ids the complete list of ids
+   * @param continuationToken the token returned with the previous page, or {@code null} for the
+   *        first page
+   * @param pageSize the maximum number of ids of the page
+   * @return the requested page
+   * @throws IllegalArgumentException if the page size is not positive or the continuation token is
+   *         not valid
+   */
+  static ListingPage of(List<String> ids, String continuationToken, int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+    }
+    final int from;
+    try {
+      from = continuationToken == null ? 0 : Integer.parseInt(continuationToken);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid continuation token: " + continuationToken, e);
+    }
+    if (from < 0 || from > ids.size()) {
+      throw new IllegalArgumentException("Invalid continuation token: " + continuationToken);
+    }
+    final int to = (int) Math.min((long) from + pageSize, ids.size());
+    return new ListingPage(ids.subList(from, to), to < ids.size() ? Integer.toString(to) : null);
+  }
+
+  /**
+   * Returns a lazily populated stream of the ids of a paged listing, fetching one page at a time
+   * from the given source while the stream is consumed. Drivers fetching pages lazily use it to
+   * override {@link Collection#streamResources(int)} and
+   * {@link Collection#streamChildCollections(int)}:
+   *
+   * <pre>
+   * &#64;Override
+   * public Stream&lt;String&gt; streamResources(int pageSize) {
+   *   return ListingPage.stream(this::listResources, pageSize);
+   * }
+   * </pre>
+   *
+   * Errors fetching a page are thrown by the terminal operation of the stream as
+   * {@link UncheckedXMLDBException}.
+   *
+   * @param source the source of the pages, like {@link Collection#listResources(String, int)}
+   * @param pageSize the maximum number of ids fetched at a time
+   * @return the stream of ids
+   * @throws IllegalArgumentException if the page size is not positive
+   */
+  public static Stream<String> stream(Source source, int pageSize) {
+    return StreamSupport.stream(
+        new PagedSpliterator(Objects.requireNonNull(source, "source"), pageSize), false);
+  }
+
+  /**
+   * Source of the pages of a paged listing.
+   */
+  @FunctionalInterface
+  public interface Source {
+    /**
+     * Fetches the page following the page the given continuation token was returned with.
+     *
+     * @param continuationToken the token of the previous page, or {@code null} for the first page
+     * @param pageSize the maximum number of ids of the page
+     * @return the requested page
+     * @throws XMLDBException if the page could not be fetched
+     */
+    ListingPage fetch(String continuationToken, int pageSize) throws XMLDBException;
+  }
+}
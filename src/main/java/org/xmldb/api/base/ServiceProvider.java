@@ -93,4 +93,36 @@ public interface ServiceProvider {
         .orElseThrow(() -> new XMLDBException(NO_SUCH_SERVICE, "Unknown service: " + serviceType));
   }
 
+  /**
+   * Borrows a {@code Service} instance for the requested {@code serviceType}, to be handed back by
+   * closing the returned lease. Implementations may keep returned services for reuse, after having
+   * reset their state like declared namespaces and variables. The default implementation leases
+   * the instance returned by {@link #getService(Class)} and does not reuse it.
+   *
+   * @param <S> the type of service
+   * @param serviceType the type of service to borrow
+   * @return a lease on an instance of the given service type
+   * @throws XMLDBException with expected error codes. {@link ErrorCodes#NO_SUCH_SERVICE} if the
+   *         service does not exist, {@link ErrorCodes#VENDOR_ERROR} for any vendor specific errors
+   *         that occur. {@link ErrorCodes#COLLECTION_CLOSED} if the {@code close} method has been
+   *         called on the {@code Collection}
+   *
+   * @since 3.1
+   */
+  default <S extends Service> ServiceLease<S> borrowService(Class<S> serviceType)
+      throws XMLDBException {
+    final S service = getService(serviceType);
+    return new ServiceLease<>() {
+      @Override
+      public S service() {
+        return service;
+      }
+
+      @Override
+      public void close() {
+        // the service is not reused
+      }
+    };
+  }
+
 }
@@ -39,25 +39,68 @@
  */
 package org.xmldb.api.base;
 
+import static org.xmldb.api.base.ErrorCodes.NOT_IMPLEMENTED;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_SERVICE;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.locks.StampedLock;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import org.xmldb.api.modules.XPathQueryService;
+import org.xmldb.api.modules.XQueryService;
+
 /**
  * Helper class responsible to lazy create {@link Service} implementations, based on the registered
  * on the {@link ProviderRegistry}.
+ * <p>
+ * The provider of each requested service type is resolved once and kept for subsequent lookups,
+ * so that repeated lookups of the same service type neither scan the registered providers nor
+ * allocate. The registered providers are created on the first lookup and published as an
+ * immutable snapshot, so lookups do not need any locking afterwards.
+ * <p>
+ * A cache created using {@link #withStatistics(Consumer)} additionally counts the lookups and
+ * created instances of each registered service as well as the lookups of unregistered services,
+ * see {@link #getStatistics()}.
  *
  * @since 2.0
  */
 public final class ServiceProviderCache implements ServiceProvider {
-  private final StampedLock lock;
+  private static final ImplementationProvider<Service> NONE =
+      new ImplementationProvider<>(Service.class, () -> null, null, false);
+
+  /**
+   * Defines the maximum number of returned service instances kept for reuse per service provider.
+   */
+  static final int MAX_IDLE = 16;
+
+  private static final VarHandle PROVIDERS;
+
+  static {
+    try {
+      PROVIDERS = MethodHandles.lookup().findVarHandle(ServiceProviderCache.class, "providers",
+          List.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   private final Consumer<ProviderRegistry> initializer;
+  private final Map<Class<?>, ImplementationProvider<? extends Service>> resolved;
+  private final LongAdder misses;
 
-  private List<ImplementationProvider<? extends Service>> providers;
+  private volatile List<ImplementationProvider<? extends Service>> providers;
 
   /**
    * Creates a new service provider cache instance with the given registry action being used, to
@@ -67,42 +110,144 @@ public final class ServiceProviderCache implements ServiceProvider {
    * @return the new service provider cache instance
    */
   public static ServiceProviderCache withRegistered(Consumer<ProviderRegistry> registry) {
-    return new ServiceProviderCache(registry);
+    return new ServiceProviderCache(registry, false);
+  }
+
+  /**
+   * Creates a new service provider cache instance with the given registry action being used, to
+   * initialize all supported services, recording the statistics available through
+   * {@link #getStatistics()}.
+   *
+   * @param registry the registration action to define the supported services
+   * @return the new service provider cache instance
+   * @since 3.1
+   */
+  public static ServiceProviderCache withStatistics(Consumer<ProviderRegistry> registry) {
+    return new ServiceProviderCache(registry, true);
   }
 
-  private ServiceProviderCache(Consumer<ProviderRegistry> initializer) {
-    lock = new StampedLock();
+  private ServiceProviderCache(Consumer<ProviderRegistry> initializer, boolean statistics) {
     this.initializer = initializer;
+    resolved = new ConcurrentHashMap<>();
+    misses = statistics ? new LongAdder() : null;
   }
 
+  /**
+   * Returns the registered providers, initializing them on the first call. Concurrent first calls
+   * may run the initializer more than once, but only the first completed snapshot is published
+   * and used by all callers.
+   *
+   * @return the immutable list of registered providers
+   */
+  @SuppressWarnings("unchecked")
   private List<ImplementationProvider<? extends Service>> providers() {
-    long stamp = lock.tryOptimisticRead();
-    if (stamp > 0 && lock.validate(stamp) && providers != null) {
-      return providers;
+    final List<ImplementationProvider<? extends Service>> current = providers;
+    if (current != null) {
+      return current;
     }
-    // fallback to locking read
-    stamp = lock.readLock();
-    try {
-      if (providers != null) {
-        return providers;
+    final List<ImplementationProvider<? extends Service>> created = new ArrayList<>();
+    initializer.accept(new ProviderRegistry() {
+      @Override
+      public <S extends Service> void add(Class<S> serviceType,
+          Supplier<? extends S> serviceSupplier) {
+        // suppliers registered without scope may hand out shared instances, never reuse them
+        register(serviceType, serviceSupplier, Scope.PER_CALL, false);
+      }
+
+      @Override
+      public <S extends Service> void add(Class<S> serviceType,
+          Supplier<? extends S> serviceSupplier, Scope scope) {
+        register(serviceType, serviceSupplier, scope, scope == Scope.PER_CALL);
+      }
+
+      private <S extends Service> void register(Class<S> serviceType,
+          Supplier<? extends S> serviceSupplier, Scope scope, boolean reusable) {
+        if (misses == null) {
+          created.add(new ImplementationProvider<>(serviceType, scope.apply(serviceSupplier),
+              null, reusable));
+        } else {
+          // measure the supplier itself, so that memoized instances are not counted as created
+          final Counters counters = new Counters();
+          created.add(new ImplementationProvider<>(serviceType,
+              scope.apply(new MeasuredSupplier<>(serviceSupplier, counters)), counters,
+              reusable));
+        }
+      }
+    });
+    final List<ImplementationProvider<? extends Service>> snapshot = List.copyOf(created);
+    final Object witness = PROVIDERS.compareAndExchange(this, null, snapshot);
+    return witness == null ? snapshot : (List<ImplementationProvider<? extends Service>>) witness;
+  }
+
+  /**
+   * Returns the provider handling the given service type, resolving it on the first lookup.
+   *
+   * @param serviceType the requested service type
+   * @return the provider or {@code null} if no provider handles the service type
+   */
+  private ImplementationProvider<? extends Service> provider(Class<?> serviceType) {
+    ImplementationProvider<? extends Service> provider = resolved.get(serviceType);
+    if (provider == null) {
+      provider = NONE;
+      for (ImplementationProvider<? extends Service> candidate : providers()) {
+        if (candidate.test(serviceType)) {
+          provider = candidate;
+          break;
+        }
       }
-    } finally {
-      lock.unlockRead(stamp);
+      resolved.putIfAbsent(serviceType, provider);
     }
-    // create write lock to initialize values
-    stamp = lock.writeLock();
-    try {
-      providers = new ArrayList<>();
-      initializer.accept(this::addServiceCache);
-      return providers;
-    } finally {
-      lock.unlockWrite(stamp);
+    if (provider == NONE) {
+      if (misses != null) {
+        misses.increment();
+      }
+      return null;
+    }
+    if (provider.counters != null) {
+      provider.counters.lookups.increment();
     }
+    return provider;
   }
 
-  private <S extends Service> void addServiceCache(Class<S> serviceType,
-      Supplier<? extends S> serviceSupplier) {
-    providers.add(new ImplementationProvider<>(serviceType, serviceSupplier));
+  /**
+   * Returns the statistics recorded since this cache has been created. The statistics are only
+   * recorded by a cache created using {@link #withStatistics(Consumer)}, all others return empty
+   * statistics.
+   *
+   * @return the current statistics
+   * @since 3.1
+   */
+  public Statistics getStatistics() {
+    if (misses == null) {
+      return new Statistics(List.of(), 0);
+    }
+    final List<ServiceStatistics> services = new ArrayList<>();
+    for (ImplementationProvider<? extends Service> provider : providers()) {
+      final Counters counters = provider.counters;
+      services.add(new ServiceStatistics(provider.serviceType, counters.lookups.sum(),
+          counters.instances.sum(), counters.instanceNanos.sum()));
+    }
+    return new Statistics(List.copyOf(services), misses.sum());
+  }
+
+  /**
+   * Removes the instances of {@link Scope#PER_THREAD} services created for the calling thread, so
+   * that the next lookup within the thread creates a new instance. Tasks running on the threads of
+   * a pool should call this method once they are done with the services of this cache, as these
+   * instances are otherwise kept as long as the thread lives.
+   *
+   * @since 3.1
+   */
+  public void removeThreadInstances() {
+    final List<ImplementationProvider<? extends Service>> current = providers;
+    if (current == null) {
+      return;
+    }
+    for (ImplementationProvider<? extends Service> provider : current) {
+      if (provider.serviceSupplier instanceof ThreadSupplier<?> threadSupplier) {
+        threadSupplier.remove();
+      }
+    }
   }
 
   /**
@@ -110,12 +255,7 @@ public final class ServiceProviderCache implements ServiceProvider {
    */
   @Override
   public <S extends Service> boolean hasService(Class<S> serviceType) {
-    for (ImplementationProvider<? extends Service> provider : providers()) {
-      if (provider.test(serviceType)) {
-        return true;
-      }
-    }
-    return false;
+    return provider(serviceType) != null;
   }
 
   /**
@@ -123,21 +263,146 @@ public final class ServiceProviderCache implements ServiceProvider {
    */
   @Override
   public <S extends Service> Optional<S> findService(Class<S> serviceType) {
-    for (ImplementationProvider<? extends Service> provider : providers()) {
-      if (provider.test(serviceType)) {
-        return Optional.ofNullable(serviceType.cast(provider.instance()));
+    final ImplementationProvider<? extends Service> provider = provider(serviceType);
+    if (provider == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(serviceType.cast(provider.instance()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <S extends Service> S getService(Class<S> serviceType) throws XMLDBException {
+    final ImplementationProvider<? extends Service> provider = provider(serviceType);
+    if (provider != null) {
+      final S service = serviceType.cast(provider.instance());
+      if (service != null) {
+        return service;
+      }
+    }
+    throw new XMLDBException(NO_SUCH_SERVICE, "Unknown service: " + serviceType);
+  }
+
+  /**
+   * Borrows an instance of the requested service type. Services explicitly registered with the
+   * {@link Scope#PER_CALL} scope are kept for reuse when the lease is closed, after having removed
+   * the namespaces and variables declared on a {@link XQueryService} or {@link XPathQueryService}.
+   * A service failing to be reset, for example because {@link XQueryService#clearVariables()} is
+   * not implemented, is dropped instead. Services registered with any other scope or without a
+   * scope are leased without reuse, as their supplier may hand out shared instances.
+   *
+   * @param <S> the type of service
+   * @param serviceType the type of service to borrow
+   * @return a lease on an instance of the given service type
+   * @throws XMLDBException with expected error codes. {@link ErrorCodes#NO_SUCH_SERVICE} if the
+   *         service does not exist
+   * @since 3.1
+   */
+  @Override
+  public <S extends Service> ServiceLease<S> borrowService(Class<S> serviceType)
+      throws XMLDBException {
+    final ImplementationProvider<? extends Service> provider = provider(serviceType);
+    if (provider != null) {
+      final S service = serviceType.cast(provider.borrow());
+      if (service != null) {
+        return new Lease<>(provider, service);
+      }
+    }
+    throw new XMLDBException(NO_SUCH_SERVICE, "Unknown service: " + serviceType);
+  }
+
+  /**
+   * Removes the state declared on the given service before it is reused.
+   *
+   * @param service the returned service
+   * @throws XMLDBException if the state of the service could not be removed
+   */
+  static void reset(Service service) throws XMLDBException {
+    if (service instanceof XQueryService xqueryService) {
+      xqueryService.clearNamespaces();
+      xqueryService.clearVariables();
+    }
+    if (service instanceof XPathQueryService xpathService) {
+      xpathService.clearNamespaces();
+    }
+  }
+
+  /**
+   * Statistics of a {@link ServiceProviderCache}.
+   *
+   * @param services the statistics of each registered service in registration order
+   * @param misses the number of lookups of service types without registered provider
+   * @since 3.1
+   */
+  public record Statistics(List<ServiceStatistics> services, long misses) {
+  }
+
+  /**
+   * Statistics of a single registered service.
+   *
+   * @param serviceType the registered service type
+   * @param lookups the number of lookups resolved to the service
+   * @param instances the number of instances created by the registered supplier
+   * @param instanceNanos the total time spent in the registered supplier in nanoseconds
+   * @since 3.1
+   */
+  public record ServiceStatistics(Class<? extends Service> serviceType, long lookups,
+      long instances, long instanceNanos) {
+    /**
+     * Returns the average time needed to create an instance of the service.
+     *
+     * @return the average creation time in nanoseconds, {@code 0} if no instance was created
+     */
+    public long averageInstanceNanos() {
+      return instances == 0 ? 0 : instanceNanos / instances;
+    }
+  }
+
+  static final class Counters {
+    final LongAdder lookups = new LongAdder();
+    final LongAdder instances = new LongAdder();
+    final LongAdder instanceNanos = new LongAdder();
+  }
+
+  static final class MeasuredSupplier<S> implements Supplier<S> {
+    private final Supplier<? extends S> serviceSupplier;
+    private final Counters counters;
+
+    MeasuredSupplier(Supplier<? extends S> serviceSupplier, Counters counters) {
+      this.serviceSupplier = serviceSupplier;
+      this.counters = counters;
+    }
+
+    @Override
+    public S get() {
+      final long start = System.nanoTime();
+      try {
+        return serviceSupplier.get();
+      } finally {
+        counters.instanceNanos.add(System.nanoTime() - start);
+        counters.instances.increment();
       }
     }
-    return Optional.empty();
   }
 
   static final class ImplementationProvider<S extends Service> implements Predicate<Class<?>> {
     private final Class<S> serviceType;
     private final Supplier<? extends S> serviceSupplier;
+    private final Counters counters;
+    private final Queue<Service> idle;
+    private final AtomicInteger idleCount;
+    private volatile boolean resettable;
 
-    ImplementationProvider(Class<S> serviceType, Supplier<? extends S> serviceSupplier) {
+    ImplementationProvider(Class<S> serviceType, Supplier<? extends S> serviceSupplier,
+        Counters counters, boolean reusable) {
       this.serviceType = serviceType;
       this.serviceSupplier = serviceSupplier;
+      this.counters = counters;
+      resettable = reusable;
+      idle = new ConcurrentLinkedQueue<>();
+      idleCount = new AtomicInteger();
     }
 
     @Override
@@ -148,6 +413,67 @@ public final class ServiceProviderCache implements ServiceProvider {
     S instance() {
       return serviceSupplier.get();
     }
+
+    Service borrow() {
+      if (resettable) {
+        final Service service = idle.poll();
+        if (service != null) {
+          idleCount.decrementAndGet();
+          return service;
+        }
+      }
+      return instance();
+    }
+
+    void release(Service service) {
+      if (!resettable) {
+        return;
+      }
+      try {
+        reset(service);
+      } catch (XMLDBException e) {
+        if (e.errorCode == NOT_IMPLEMENTED) {
+          // the service type does not support resetting, so none of its instances are reused
+          resettable = false;
+          idle.clear();
+        }
+        return;
+      } catch (RuntimeException e) {
+        return;
+      }
+      if (idleCount.incrementAndGet() <= MAX_IDLE) {
+        idle.offer(service);
+      } else {
+        idleCount.decrementAndGet();
+      }
+    }
+  }
+
+  static final class Lease<S extends Service> implements ServiceLease<S> {
+    private final ImplementationProvider<? extends Service> provider;
+    private final AtomicReference<S> service;
+
+    Lease(ImplementationProvider<? extends Service> provider, S service) {
+      this.provider = provider;
+      this.service = new AtomicReference<>(service);
+    }
+
+    @Override
+    public S service() {
+      final S leased = service.get();
+      if (leased == null) {
+        throw new IllegalStateException("Service lease already closed");
+      }
+      return leased;
+    }
+
+    @Override
+    public void close() {
+      final S leased = service.getAndSet(null);
+      if (leased != null) {
+        provider.release(leased);
+      }
+    }
   }
 
   /**
@@ -163,5 +489,114 @@ public final class ServiceProviderCache implements ServiceProvider {
      * @param serviceSupplier a supplier that provides instances of the service
      */
     <S extends Service> void add(Class<S> serviceType, Supplier<? extends S> serviceSupplier);
+
+    /**
+     * Registers a service provider for a given service type, whose instances are reused according
+     * to the given scope.
+     *
+     * @param <S> the type of the service, extending {@code Service}
+     * @param serviceType the class object representing the service type
+     * @param serviceSupplier a supplier that provides instances of the service
+     * @param scope the scope of the provided service instances
+     * @since 3.1
+     */
+    default <S extends Service> void add(Class<S> serviceType,
+        Supplier<? extends S> serviceSupplier, Scope scope) {
+      add(serviceType, scope.apply(serviceSupplier));
+    }
+  }
+
+  /**
+   * Defines how long a service instance created by a registered supplier is reused.
+   *
+   * @since 3.1
+   */
+  public enum Scope {
+    /**
+     * A new instance is created for each lookup of the service. The supplier must therefore return
+     * a new instance on each call, as instances handed back using
+     * {@link ServiceProvider#borrowService(Class)} are reset and reused by subsequent leases.
+     */
+    PER_CALL {
+      @Override
+      <S> Supplier<? extends S> apply(Supplier<? extends S> serviceSupplier) {
+        return serviceSupplier;
+      }
+    },
+    /**
+     * A single instance is created on the first lookup and shared by all subsequent lookups of
+     * the service. The service implementation therefore needs to be thread safe.
+     */
+    SINGLETON {
+      @Override
+      <S> Supplier<? extends S> apply(Supplier<? extends S> serviceSupplier) {
+        return new SingletonSupplier<>(serviceSupplier);
+      }
+    },
+    /**
+     * An instance is created on the first lookup of each thread and reused by all subsequent
+     * lookups of the service within the same thread. The instance is kept by the thread until it
+     * terminates or {@link ServiceProviderCache#removeThreadInstances()} is called within the
+     * thread, also after the cache is no longer used. Long living threads like those of a pool
+     * therefore retain one instance per cache they have used, unless their tasks remove them.
+     */
+    PER_THREAD {
+      @Override
+      <S> Supplier<? extends S> apply(Supplier<? extends S> serviceSupplier) {
+        return new ThreadSupplier<>(serviceSupplier);
+      }
+    };
+
+    abstract <S> Supplier<? extends S> apply(Supplier<? extends S> serviceSupplier);
+  }
+
+  static final class SingletonSupplier<S> implements Supplier<S> {
+    private final Supplier<? extends S> serviceSupplier;
+    private volatile S instance;
+
+    SingletonSupplier(Supplier<? extends S> serviceSupplier) {
+      this.serviceSupplier = serviceSupplier;
+    }
+
+    @Override
+    public S get() {
+      S result = instance;
+      if (result == null) {
+        synchronized (this) {
+          result = instance;
+          if (result == null) {
+            result = serviceSupplier.get();
+            instance = result;
+          }
+        }
+      }
+      return result;
+    }
+  }
+
+  static final class ThreadSupplier<S> implements Supplier<S> {
+    private final Supplier<? extends S> serviceSupplier;
+    private final ThreadLocal<S> instance;
+
+    ThreadSupplier(Supplier<? extends S> serviceSupplier) {
+      this.serviceSupplier = serviceSupplier;
+      instance = new ThreadLocal<>();
+    }
+
+    @Override
+    public S get() {
+      S result = instance.get();
+      if (result == null) {
+        result = serviceSupplier.get();
+        if (result != null) {
+          instance.set(result);
+        }
+      }
+      return result;
+    }
+
+    void remove() {
+      instance.remove();
+    }
   }
 }
@@ -0,0 +1,94 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import java.util.Objects;
+
+/**
+ * Outcome of storing a single {@link Resource} as part of
+ * {@link Collection#storeResources(java.util.Collection)}.
+ *
+ * @param resource the resource having been stored
+ * @param error the error having occurred while storing the resource, or {@code null} if the
+ *        resource has been stored successfully
+ * @since 3.1
+ */
+public record StoreResult(Resource resource, XMLDBException error) {
+  /**
+   * Validates the result values.
+   *
+   * @param resource the resource having been stored
+   * @param error the error having occurred while storing the resource, or {@code null} if the
+   *        resource has been stored successfully
+   */
+  public StoreResult {
+    Objects.requireNonNull(resource, "resource");
+  }
+
+  /**
+   * Creates the result of a successfully stored resource.
+   *
+   * @param resource the stored resource
+   * @return the successful result
+   */
+  public static StoreResult success(Resource resource) {
+    return new StoreResult(resource, null);
+  }
+
+  /**
+   * Creates the result of a resource that could not be stored.
+   *
+   * @param resource the resource having failed to be stored
+   * @param error the error having occurred
+   * @return the failed result
+   */
+  public static StoreResult failure(Resource resource, XMLDBException error) {
+    return new StoreResult(resource, Objects.requireNonNull(error, "error"));
+  }
+
+  /**
+   * Returns whether the resource has been stored successfully.
+   *
+   * @return {@code true} if the resource has been stored, {@code false} otherwise
+   */
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
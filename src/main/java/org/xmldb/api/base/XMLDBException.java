@@ -49,6 +49,12 @@ import java.io.Serial;
  * <p>
  * If the error being thrown is only vendor specific, then errorCode MUST be set to
  * ErrorCodes.VENDOR_ERROR.
+ * <p>
+ * Exceptions with an error code signalling an expected condition, by default
+ * {@link ErrorCodes#NO_SUCH_SERVICE}, {@link ErrorCodes#NO_SUCH_RESOURCE} and
+ * {@link ErrorCodes#NO_SUCH_DATABASE}, are created without a stack trace, as filling it in is
+ * expensive and it is of no use for those conditions. The error codes can be changed using
+ * {@link #setStacklessErrorCodes(int...)}.
  *
  * @see org.xmldb.api.base.ErrorCodes
  */
@@ -74,6 +80,9 @@ public final class XMLDBException extends Exception {
    */
   public final int vendorErrorCode;
 
+  private static volatile int[] stacklessErrorCodes =
+      {ErrorCodes.NO_SUCH_SERVICE, ErrorCodes.NO_SUCH_RESOURCE, ErrorCodes.NO_SUCH_DATABASE};
+
   /**
    * Constructs a new XMLDBException instance with a default error code set to
    * {@link ErrorCodes#UNKNOWN_ERROR}.
@@ -177,11 +186,62 @@ public final class XMLDBException extends Exception {
    * @param cause the underlying {@code Throwable} that caused this exception to be thrown.
    */
   public XMLDBException(int errorCode, int vendorErrorCode, String message, Throwable cause) {
-    super(messageFromErrorCode(message, errorCode, vendorErrorCode), cause);
+    this(errorCode, vendorErrorCode, message, cause, true, !isStackless(errorCode));
+  }
+
+  private XMLDBException(int errorCode, int vendorErrorCode, String message, Throwable cause,
+      boolean enableSuppression, boolean writableStackTrace) {
+    super(messageFromErrorCode(message, errorCode, vendorErrorCode), cause, enableSuppression,
+        writableStackTrace);
     this.errorCode = errorCode;
     this.vendorErrorCode = vendorErrorCode;
   }
 
+  /**
+   * Creates a lightweight {@code XMLDBException} having neither a stack trace nor suppressed
+   * exceptions, regardless of the configured stackless error codes. Such an exception is immutable
+   * and can therefore be preallocated and thrown repeatedly.
+   *
+   * @param errorCode the XML:DB error code representing the specific error condition.
+   * @param message a custom message providing additional details about the error or {@code null}
+   *        for the default message of the error code.
+   * @return the new exception
+   * @since 3.1
+   */
+  public static XMLDBException stackless(int errorCode, String message) {
+    return new XMLDBException(errorCode, 0, message, null, false, false);
+  }
+
+  /**
+   * Returns the error codes for which exceptions are created without a stack trace.
+   *
+   * @return a copy of the stackless error codes
+   * @since 3.1
+   */
+  public static int[] getStacklessErrorCodes() {
+    return stacklessErrorCodes.clone();
+  }
+
+  /**
+   * Sets the error codes for which exceptions are created without a stack trace. Calling this
+   * method without any error code makes all exceptions fill in their stack trace.
+   *
+   * @param errorCodes the error codes of expected conditions
+   * @since 3.1
+   */
+  public static void setStacklessErrorCodes(int... errorCodes) {
+    stacklessErrorCodes = errorCodes.clone();
+  }
+
+  static boolean isStackless(final int errorCode) {
+    for (int stacklessErrorCode : stacklessErrorCodes) {
+      if (stacklessErrorCode == errorCode) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   static String messageFromErrorCode(final String message, final int errorCode,
       final int vendorErrorCode) {
     if (message != null) {
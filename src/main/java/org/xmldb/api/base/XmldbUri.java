@@ -0,0 +1,219 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed representation of an XML:DB URI of the form
+ * {@code xmldb:<driver id>://<authority>/<collection path>} or
+ * {@code xmldb:<driver id>:<collection path>}.
+ * <p>
+ * The URI is parsed only once into its parts, which are then available to every {@link Database}
+ * without further parsing. Instances are interned by {@link #of(String)}, so repeated lookups of
+ * the same URI return the same instance.
+ * <p>
+ * Parsing is lenient: a URI not following the XML:DB URI format is still represented, but has no
+ * {@link #driverId() driver id}, {@link #authority() authority} or {@link #path() path}.
+ *
+ * @since 3.1
+ */
+public final class XmldbUri {
+  /**
+   * The scheme of all XML:DB URIs.
+   */
+  public static final String SCHEME = "xmldb";
+
+  private static final int INTERNED_MAXIMUM = 1024;
+  private static final Map<String, XmldbUri> INTERNED = new ConcurrentHashMap<>();
+
+  private final String uri;
+  private final String scheme;
+  private final String driverId;
+  private final String authority;
+  private final String path;
+  private final String prefix;
+
+  private XmldbUri(String uri, String scheme, String driverId, String authority, String path,
+      String prefix) {
+    this.uri = uri;
+    this.scheme = scheme;
+    this.driverId = driverId;
+    this.authority = authority;
+    this.path = path;
+    this.prefix = prefix;
+  }
+
+  /**
+   * Returns the parsed representation of the given URI, reusing an already parsed instance if
+   * available.
+   *
+   * @param uri the URI to be parsed
+   * @return the parsed URI
+   * @throws NullPointerException if the given URI is {@code null}
+   */
+  public static XmldbUri of(String uri) {
+    XmldbUri parsed = INTERNED.get(Objects.requireNonNull(uri, "uri"));
+    if (parsed == null) {
+      parsed = parse(uri);
+      if (INTERNED.size() >= INTERNED_MAXIMUM) {
+        // make room by evicting an arbitrary entry
+        final Iterator<String> keys = INTERNED.keySet().iterator();
+        if (keys.hasNext()) {
+          keys.next();
+          keys.remove();
+        }
+      }
+      final XmldbUri existing = INTERNED.putIfAbsent(uri, parsed);
+      if (existing != null) {
+        parsed = existing;
+      }
+    }
+    return parsed;
+  }
+
+  private static XmldbUri parse(String uri) {
+    final int schemeEnd = uri.indexOf(':');
+    if (schemeEnd <= 0) {
+      return new XmldbUri(uri, null, null, null, null, null);
+    }
+    final String scheme = uri.substring(0, schemeEnd);
+    final int driverEnd = uri.indexOf(':', schemeEnd + 1);
+    if (!SCHEME.equals(scheme) || driverEnd <= schemeEnd + 1) {
+      return new XmldbUri(uri, scheme, null, null, null, null);
+    }
+    final String driverId = uri.substring(schemeEnd + 1, driverEnd);
+    final String prefix = uri.substring(0, driverEnd + 1);
+    final int start = driverEnd + 1;
+    if (uri.startsWith("//", start)) {
+      final int pathStart = uri.indexOf('/', start + 2);
+      if (pathStart < 0) {
+        return new XmldbUri(uri, scheme, driverId, uri.substring(start + 2), "", prefix);
+      }
+      return new XmldbUri(uri, scheme, driverId, uri.substring(start + 2, pathStart),
+          uri.substring(pathStart), prefix);
+    }
+    return new XmldbUri(uri, scheme, driverId, null, uri.substring(start), prefix);
+  }
+
+  /**
+   * Returns the scheme of the URI, which is {@link #SCHEME} for XML:DB URIs.
+   *
+   * @return the scheme or {@code null} if the URI has none
+   */
+  public String scheme() {
+    return scheme;
+  }
+
+  /**
+   * Returns the id of the database driver, as in {@code xmldb:<driver id>:}.
+   *
+   * @return the driver id or {@code null} if this is not an XML:DB URI
+   */
+  public String driverId() {
+    return driverId;
+  }
+
+  /**
+   * Returns the authority of the URI, which usually consists of the host and port.
+   *
+   * @return the authority or {@code null} if the URI has none
+   */
+  public String authority() {
+    return authority;
+  }
+
+  /**
+   * Returns the collection path of the URI.
+   *
+   * @return the collection path or {@code null} if this is not an XML:DB URI
+   */
+  public String path() {
+    return path;
+  }
+
+  /**
+   * Returns the canonical URI prefix consisting of the scheme, the driver id and the following
+   * colon character, as used for {@link DatabaseDriver#uriPrefixes()}.
+   *
+   * @return the URI prefix or {@code null} if this is not an XML:DB URI
+   */
+  public String prefix() {
+    return prefix;
+  }
+
+  /**
+   * Returns whether this URI follows the XML:DB URI format.
+   *
+   * @return {@code true} if the URI has a driver id, {@code false} otherwise
+   */
+  public boolean isXmldbUri() {
+    return driverId != null;
+  }
+
+  @Override
+  public int hashCode() {
+    return uri.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj instanceof XmldbUri other) {
+      return uri.equals(other.uri);
+    }
+    return false;
+  }
+
+  /**
+   * Returns the URI as given to {@link #of(String)}.
+   *
+   * @return the original URI
+   */
+  @Override
+  public String toString() {
+    return uri;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.jfr;
+
+import static org.xmldb.api.base.ErrorCodes.UNKNOWN_ERROR;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import org.xmldb.api.base.AsyncCollection;
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.Resource;
+import org.xmldb.api.base.XMLDBException;
+
+/**
+ * {@link AsyncCollection} emitting flight recorder events for the resource operations of the
+ * asynchronous view of the wrapped collection. The events last until the returned stages complete.
+ */
+final class JfrAsyncCollection implements AsyncCollection {
+  private final AsyncCollection delegate;
+  private final JfrCollection collection;
+  private final String uri;
+
+  JfrAsyncCollection(AsyncCollection delegate, JfrCollection collection, String uri) {
+    this.delegate = delegate;
+    this.collection = collection;
+    this.uri = uri;
+  }
+
+  @Override
+  public Collection collection() {
+    return collection;
+  }
+
+  @Override
+  public CompletionStage<Resource> getResource(String id) {
+    final ResourceGetEvent event = new ResourceGetEvent();
+    event.begin();
+    return delegate.getResource(id).whenComplete((resource, error) -> event.report(uri, id,
+        resource == null ? 0 : 1, error == null ? null : xmldbException(error)));
+  }
+
+  @Override
+  public CompletionStage<Void> storeResource(Resource res) {
+    final ResourceStoreEvent event = new ResourceStoreEvent();
+    final String id = event.isEnabled() ? JfrCollection.id(res) : null;
+    event.begin();
+    return delegate.storeResource(res).whenComplete((result, error) -> event.report(uri, id,
+        error == null ? 1 : 0, error == null ? null : xmldbException(error)));
+  }
+
+  @Override
+  public CompletionStage<Void> removeResource(Resource res) {
+    final ResourceRemoveEvent event = new ResourceRemoveEvent();
+    final String id = event.isEnabled() ? JfrCollection.id(res) : null;
+    event.begin();
+    return delegate.removeResource(res).whenComplete((result, error) -> event.report(uri, id,
+        error == null ? 1 : 0, error == null ? null : xmldbException(error)));
+  }
+
+  @Override
+  public CompletionStage<List<String>> listResources() {
+    return delegate.listResources();
+  }
+
+  @Override
+  public CompletionStage<Collection> getChildCollection(String collectionName) {
+    return delegate.getChildCollection(collectionName)
+        .thenApply(child -> JfrCollection.wrap(child, collection.childUri(collectionName)));
+  }
+
+  private static XMLDBException xmldbException(Throwable error) {
+    final Throwable cause = error instanceof CompletionException && error.getCause() != null
+        ? error.getCause()
+        : error;
+    if (cause instanceof XMLDBException xmldbException) {
+      return xmldbException;
+    }
+    return new XMLDBException(UNKNOWN_ERROR, cause);
+  }
+}
@@ -0,0 +1,349 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.jfr;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import org.xmldb.api.base.AsyncCollection;
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.ListingPage;
+import org.xmldb.api.base.Resource;
+import org.xmldb.api.base.Service;
+import org.xmldb.api.base.ServiceLease;
+import org.xmldb.api.base.StoreResult;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.modules.TransactionService;
+import org.xmldb.api.modules.XPathQueryService;
+import org.xmldb.api.modules.XQueryService;
+import org.xmldb.api.modules.XUpdateQueryService;
+
+/**
+ * {@link Collection} emitting flight recorder events for the resource operations of the wrapped
+ * collection. Child and parent collections as well as the query, update and transaction services
+ * returned are instrumented as well. The asynchronous view is obtained from the wrapped collection,
+ * so that a native implementation of the driver is kept, and instrumented likewise.
+ *
+ * @since 3.1
+ */
+public final class JfrCollection implements Collection {
+  private final Collection delegate;
+  private final String uri;
+
+  private JfrCollection(Collection delegate, String uri) {
+    this.delegate = delegate;
+    this.uri = uri;
+  }
+
+  /**
+   * Wraps the given collection in order to emit flight recorder events.
+   *
+   * @param collection the collection to be instrumented or {@code null}
+   * @param uri the URI of the collection, reported by the events
+   * @return the instrumented collection or {@code null} if the given collection is {@code null}
+   */
+  public static Collection wrap(Collection collection, String uri) {
+    if (collection == null || collection instanceof JfrCollection) {
+      return collection;
+    }
+    return new JfrCollection(collection, Objects.requireNonNull(uri, "uri"));
+  }
+
+  static Collection unwrap(Collection collection) {
+    if (collection instanceof JfrCollection instrumented) {
+      return instrumented.delegate;
+    }
+    return collection;
+  }
+
+  @Override
+  public String getName() throws XMLDBException {
+    return delegate.getName();
+  }
+
+  @Override
+  public Collection getParentCollection() throws XMLDBException {
+    return wrap(delegate.getParentCollection(), parentUri());
+  }
+
+  @Override
+  public int getChildCollectionCount() throws XMLDBException {
+    return delegate.getChildCollectionCount();
+  }
+
+  @Override
+  public List<String> listChildCollections() throws XMLDBException {
+    return delegate.listChildCollections();
+  }
+
+  @Override
+  public ListingPage listChildCollections(String continuationToken, int pageSize)
+      throws XMLDBException {
+    return delegate.listChildCollections(continuationToken, pageSize);
+  }
+
+  @Override
+  public Stream<String> streamChildCollections(int pageSize) {
+    return delegate.streamChildCollections(pageSize);
+  }
+
+  @Override
+  public Collection getChildCollection(String collectionName) throws XMLDBException {
+    return wrap(delegate.getChildCollection(collectionName), childUri(collectionName));
+  }
+
+  @Override
+  public int getResourceCount() throws XMLDBException {
+    return delegate.getResourceCount();
+  }
+
+  @Override
+  public List<String> listResources() throws XMLDBException {
+    return delegate.listResources();
+  }
+
+  @Override
+  public ListingPage listResources(String continuationToken, int pageSize) throws XMLDBException {
+    return delegate.listResources(continuationToken, pageSize);
+  }
+
+  @Override
+  public Stream<String> streamResources(int pageSize) {
+    return delegate.streamResources(pageSize);
+  }
+
+  @Override
+  public <R extends Resource> R createResource(String id, Class<R> type) throws XMLDBException {
+    return delegate.createResource(id, type);
+  }
+
+  @Override
+  public void removeResource(Resource res) throws XMLDBException {
+    final ResourceRemoveEvent event = new ResourceRemoveEvent();
+    final String id = event.isEnabled() ? id(res) : null;
+    event.begin();
+    try {
+      delegate.removeResource(res);
+      event.report(uri, id, 1, null);
+    } catch (XMLDBException e) {
+      event.report(uri, id, 0, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public void storeResource(Resource res) throws XMLDBException {
+    final ResourceStoreEvent event = new ResourceStoreEvent();
+    event.begin();
+    try {
+      delegate.storeResource(res);
+      event.report(uri, event.isEnabled() ? id(res) : null, 1, null);
+    } catch (XMLDBException e) {
+      event.report(uri, event.isEnabled() ? id(res) : null, 0, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public List<StoreResult> storeResources(java.util.Collection<? extends Resource> resources)
+      throws XMLDBException {
+    final ResourceStoreEvent event = new ResourceStoreEvent();
+    event.begin();
+    try {
+      final List<StoreResult> results = delegate.storeResources(resources);
+      event.report(uri, null, event.isEnabled() ? stored(results) : 0, null);
+      return results;
+    } catch (XMLDBException e) {
+      event.report(uri, null, 0, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public Resource getResource(String id) throws XMLDBException {
+    final ResourceGetEvent event = new ResourceGetEvent();
+    event.begin();
+    try {
+      final Resource resource = delegate.getResource(id);
+      event.report(uri, id, resource == null ? 0 : 1, null);
+      return resource;
+    } catch (XMLDBException e) {
+      event.report(uri, id, 0, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public List<Optional<Resource>> getResources(List<String> ids) throws XMLDBException {
+    final ResourceGetEvent event = new ResourceGetEvent();
+    event.begin();
+    try {
+      final List<Optional<Resource>> resources = delegate.getResources(ids);
+      event.report(uri, null, event.isEnabled() ? found(resources) : 0, null);
+      return resources;
+    } catch (XMLDBException e) {
+      event.report(uri, null, 0, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public String createId() throws XMLDBException {
+    return delegate.createId();
+  }
+
+  @Override
+  public boolean isOpen() throws XMLDBException {
+    return delegate.isOpen();
+  }
+
+  @Override
+  public void close() throws XMLDBException {
+    delegate.close();
+  }
+
+  @Override
+  public Instant getCreationTime() throws XMLDBException {
+    return delegate.getCreationTime();
+  }
+
+  @Override
+  public <S extends Service> boolean hasService(Class<S> serviceType) {
+    return delegate.hasService(serviceType);
+  }
+
+  @Override
+  public <S extends Service> Optional<S> findService(Class<S> serviceType) {
+    return delegate.findService(serviceType).map(service -> instrument(serviceType, service));
+  }
+
+  @Override
+  public <S extends Service> S getService(Class<S> serviceType) throws XMLDBException {
+    return instrument(serviceType, delegate.getService(serviceType));
+  }
+
+  @Override
+  public <S extends Service> ServiceLease<S> borrowService(Class<S> serviceType)
+      throws XMLDBException {
+    final ServiceLease<S> lease = delegate.borrowService(serviceType);
+    final S service = instrument(serviceType, lease.service());
+    return new ServiceLease<>() {
+      @Override
+      public S service() {
+        return service;
+      }
+
+      @Override
+      public void close() {
+        lease.close();
+      }
+    };
+  }
+
+  @Override
+  public String getProperty(String name) throws XMLDBException {
+    return delegate.getProperty(name);
+  }
+
+  @Override
+  public String getProperty(String name, String defaultValue) throws XMLDBException {
+    return delegate.getProperty(name, defaultValue);
+  }
+
+  @Override
+  public void setProperty(String name, String value) throws XMLDBException {
+    delegate.setProperty(name, value);
+  }
+
+  @Override
+  public AsyncCollection async(Executor executor) {
+    return new JfrAsyncCollection(delegate.async(executor), this, uri);
+  }
+
+  @Override
+  public String toString() {
+    return "JfrCollection[" + uri + "]";
+  }
+
+  private <S extends Service> S instrument(Class<S> serviceType, S service) {
+    if (service == null) {
+      return null;
+    } else if (serviceType == XPathQueryService.class) {
+      return serviceType.cast(new JfrXPathQueryService((XPathQueryService) service, uri));
+    } else if (serviceType == XQueryService.class) {
+      return serviceType.cast(new JfrXQueryService((XQueryService) service, uri));
+    } else if (serviceType == XUpdateQueryService.class) {
+      return serviceType.cast(new JfrXUpdateQueryService((XUpdateQueryService) service, uri));
+    } else if (serviceType == TransactionService.class) {
+      return serviceType.cast(new JfrTransactionService((TransactionService) service, uri));
+    }
+    return service;
+  }
+
+  String childUri(String collectionName) {
+    return uri.endsWith("/") ? uri + collectionName : uri + '/' + collectionName;
+  }
+
+  private String parentUri() {
+    final int end = uri.endsWith("/") ? uri.length() - 1 : uri.length();
+    final int separator = uri.lastIndexOf('/', end - 1);
+    return separator < 0 ? uri : uri.substring(0, separator);
+  }
+
+  private static long stored(List<StoreResult> results) {
+    return results.stream().filter(StoreResult::isSuccess).count();
+  }
+
+  private static long found(List<Optional<Resource>> resources) {
+    return resources.stream().filter(Optional::isPresent).count();
+  }
+
+  static String id(Resource resource) {
+    try {
+      return resource == null ? null : resource.getId();
+    } catch (XMLDBException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.jfr;
+
+import java.util.Objects;
+import java.util.Properties;
+
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.ConnectionOptions;
+import org.xmldb.api.base.Database;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
+
+/**
+ * {@link Database} emitting a {@link CollectionOpenEvent} for each retrieved collection. The
+ * returned collections are wrapped into a {@link JfrCollection}.
+ *
+ * @since 3.1
+ */
+public final class JfrDatabase implements Database {
+  private final Database delegate;
+
+  /**
+   * Creates an instrumented database delegating to the given one.
+   *
+   * @param delegate the database to be instrumented
+   */
+  public JfrDatabase(Database delegate) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate");
+  }
+
+  @Override
+  public String getName() throws XMLDBException {
+    return delegate.getName();
+  }
+
+  @Override
+  public Collection getCollection(String uri, Properties info) throws XMLDBException {
+    final CollectionOpenEvent event = new CollectionOpenEvent();
+    event.begin();
+    try {
+      return opened(event, uri, delegate.getCollection(uri, info));
+    } catch (XMLDBException e) {
+      event.report(uri, null, 0, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public Collection getCollection(String uri, ConnectionOptions options) throws XMLDBException {
+    final CollectionOpenEvent event = new CollectionOpenEvent();
+    event.begin();
+    try {
+      return opened(event, uri, delegate.getCollection(uri, options));
+    } catch (XMLDBException e) {
+      event.report(uri, null, 0, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public Collection getCollection(XmldbUri uri, ConnectionOptions options) throws XMLDBException {
+    final CollectionOpenEvent event = new CollectionOpenEvent();
+    event.begin();
+    try {
+      return opened(event, uri.toString(), delegate.getCollection(uri, options));
+    } catch (XMLDBException e) {
+      event.report(uri.toString(), null, 0, e);
+      throw e;
+    }
+  }
+
+  private static Collection opened(CollectionOpenEvent event, String uri, Collection collection) {
+    event.report(uri, null, collection == null ? 0 : 1, null);
+    return JfrCollection.wrap(collection, uri);
+  }
+
+  @Override
+  public boolean acceptsURI(String uri) {
+    return delegate.acceptsURI(uri);
+  }
+
+  @Override
+  public boolean acceptsURI(XmldbUri uri) {
+    return delegate.acceptsURI(uri);
+  }
+
+  @Override
+  public String getConformanceLevel() throws XMLDBException {
+    return delegate.getConformanceLevel();
+  }
+
+  @Override
+  public String getProperty(String name) throws XMLDBException {
+    return delegate.getProperty(name);
+  }
+
+  @Override
+  public String getProperty(String name, String defaultValue) throws XMLDBException {
+    return delegate.getProperty(name, defaultValue);
+  }
+
+  @Override
+  public void setProperty(String name, String value) throws XMLDBException {
+    delegate.setProperty(name, value);
+  }
+
+  @Override
+  public String toString() {
+    return "JfrDatabase[" + delegate + "]";
+  }
+}
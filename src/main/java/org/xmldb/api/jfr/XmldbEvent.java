@@ -0,0 +1,131 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import org.xmldb.api.base.ResourceSet;
+import org.xmldb.api.base.XMLDBException;
+
+/**
+ * Base of all XML:DB flight recorder events, which are disabled by default. The duration of the
+ * event is the duration of the instrumented operation.
+ *
+ * @since 3.1
+ */
+@Category("XML:DB")
+@Enabled(false)
+@StackTrace(false)
+public abstract class XmldbEvent extends Event {
+  /**
+   * Error code value of successful operations.
+   */
+  public static final int NO_ERROR = -1;
+
+  @Label("URI")
+  @Description("URI of the collection")
+  String uri;
+
+  @Label("Resource Id")
+  String resourceId;
+
+  @Label("Result Size")
+  @Description("Number of resources or collections returned or modified by the operation")
+  long resultSize;
+
+  @Label("Error Code")
+  @Description("Error code of the failed operation or -1 if successful")
+  int errorCode = NO_ERROR;
+
+  XmldbEvent() {}
+
+  /**
+   * Ends the event and commits it if it is enabled and exceeds the configured threshold.
+   *
+   * @param uri the collection URI
+   * @param resourceId the resource id or {@code null}
+   * @param resultSize the number of returned or modified resources
+   * @param error the raised error or {@code null}
+   */
+  final void report(String uri, String resourceId, long resultSize, XMLDBException error) {
+    end();
+    if (shouldCommit()) {
+      this.uri = uri;
+      this.resourceId = resourceId;
+      this.resultSize = resultSize;
+      this.errorCode = error == null ? NO_ERROR : error.errorCode;
+      commit();
+    }
+  }
+
+  /**
+   * Ends the event and commits it if enabled, using the size of the given result. The size is only
+   * determined if the event is committed.
+   *
+   * @param uri the collection URI
+   * @param resourceId the resource id or {@code null}
+   * @param result the query result
+   */
+  final void report(String uri, String resourceId, ResourceSet result) {
+    end();
+    if (shouldCommit()) {
+      this.uri = uri;
+      this.resourceId = resourceId;
+      this.resultSize = size(result);
+      commit();
+    }
+  }
+
+  private static long size(ResourceSet result) {
+    if (result == null) {
+      return 0;
+    }
+    try {
+      return result.getSize();
+    } catch (XMLDBException e) {
+      return -1;
+    }
+  }
+}
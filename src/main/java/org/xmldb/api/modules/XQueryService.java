@@ -39,6 +39,8 @@
  */
 package org.xmldb.api.modules;
 
+import static org.xmldb.api.base.ErrorCodes.NOT_IMPLEMENTED;
+
 import org.xmldb.api.base.CompiledExpression;
 import org.xmldb.api.base.ResourceSet;
 import org.xmldb.api.base.Service;
@@ -178,6 +180,18 @@ public interface XQueryService extends Service {
    */
   void declareVariable(String qname, Object initialValue) throws XMLDBException;
 
+  /**
+   * Removes all variables declared using {@link #declareVariable(String, Object)}.
+   *
+   * @throws XMLDBException if an error occurs whilst clearing the variables.
+   *         {@link org.xmldb.api.base.ErrorCodes#NOT_IMPLEMENTED} if the service does not support
+   *         removing declared variables, which is the default.
+   * @since 3.1
+   */
+  default void clearVariables() throws XMLDBException {
+    throw XMLDBException.stackless(NOT_IMPLEMENTED, null);
+  }
+
   /**
    * Enable or disable XPath 1.0 compatibility mode. In XPath 1.0 compatibility mode, some XQuery
    * expressions will behave different. In particular, additional automatic type conversions will be
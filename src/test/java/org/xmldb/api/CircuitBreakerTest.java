@@ -0,0 +1,135 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.xmldb.api.base.ErrorCodes.PERMISSION_DENIED;
+import static org.xmldb.api.base.ErrorCodes.VENDOR_ERROR;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.xmldb.api.CircuitBreakerStatus.State;
+import org.xmldb.api.base.XMLDBException;
+
+class CircuitBreakerTest {
+  private static final XMLDBException FAILURE = new XMLDBException(VENDOR_ERROR);
+
+  @Test
+  void testOpensAfterThreshold() {
+    CircuitBreakerPolicy policy = new CircuitBreakerPolicy(2, Duration.ofHours(1));
+    CircuitBreaker breaker = new CircuitBreaker();
+
+    breaker.recordFailure(policy, FAILURE);
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    assertThat(breaker.allowRequest(policy)).isTrue();
+
+    breaker.recordFailure(policy, FAILURE);
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+    assertThat(breaker.consecutiveFailures()).isEqualTo(2);
+    assertThat(breaker.allowRequest(policy)).isFalse();
+  }
+
+  @Test
+  void testSuccessResetsFailures() {
+    CircuitBreakerPolicy policy = new CircuitBreakerPolicy(2, Duration.ofHours(1));
+    CircuitBreaker breaker = new CircuitBreaker();
+
+    breaker.recordFailure(policy, FAILURE);
+    breaker.recordSuccess();
+    breaker.recordFailure(policy, FAILURE);
+
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    assertThat(breaker.consecutiveFailures()).isEqualTo(1);
+  }
+
+  @Test
+  void testHalfOpenTrial() {
+    CircuitBreakerPolicy policy = new CircuitBreakerPolicy(1, Duration.ZERO);
+    CircuitBreaker breaker = new CircuitBreaker();
+
+    breaker.recordFailure(policy, FAILURE);
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+    assertThat(breaker.allowRequest(policy)).isTrue();
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+
+    breaker.recordFailure(policy, FAILURE);
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+
+    assertThat(breaker.allowRequest(policy)).isTrue();
+    breaker.recordSuccess();
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    assertThat(breaker.consecutiveFailures()).isZero();
+  }
+
+  @Test
+  void testRequestErrorsIgnored() {
+    CircuitBreakerPolicy policy = new CircuitBreakerPolicy(1, Duration.ofHours(1));
+    CircuitBreaker breaker = new CircuitBreaker();
+
+    breaker.recordFailure(policy, new XMLDBException(PERMISSION_DENIED));
+
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    assertThat(breaker.consecutiveFailures()).isZero();
+  }
+
+  @Test
+  void testRequestErrorEndsTrial() {
+    CircuitBreakerPolicy policy = new CircuitBreakerPolicy(1, Duration.ZERO);
+    CircuitBreaker breaker = new CircuitBreaker();
+
+    breaker.recordFailure(policy, FAILURE);
+    assertThat(breaker.allowRequest(policy)).isTrue();
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+
+    breaker.recordFailure(policy, new XMLDBException(PERMISSION_DENIED));
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    assertThat(breaker.consecutiveFailures()).isZero();
+  }
+
+  @Test
+  void testInvalidPolicy() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> new CircuitBreakerPolicy(0, Duration.ZERO));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> new CircuitBreakerPolicy(1, Duration.ofSeconds(-1)));
+  }
+}
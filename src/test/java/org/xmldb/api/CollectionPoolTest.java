@@ -0,0 +1,275 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.xmldb.api.base.ErrorCodes.COLLECTION_CLOSED;
+import static org.xmldb.api.base.ErrorCodes.NOT_IMPLEMENTED;
+import static org.xmldb.api.base.ErrorCodes.UNKNOWN_ERROR;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.xmldb.api.CollectionPool.CollectionSource;
+import org.xmldb.api.CollectionPool.Config;
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.ConnectionOptions;
+import org.xmldb.api.base.Database;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
+import org.xmldb.api.modules.XQueryService;
+
+@ExtendWith(MockitoExtension.class)
+class CollectionPoolTest {
+  static final String URI = "xmldb:dbName:collection";
+
+  @Mock
+  CollectionSource source;
+  @Mock
+  Collection collectionOne;
+  @Mock
+  Collection collectionTwo;
+  @Mock
+  Database database;
+  @Mock
+  XQueryService queryService;
+
+  @AfterEach
+  void tearDown() {
+    verifyNoMoreInteractions(source, collectionOne, collectionTwo);
+  }
+
+  CollectionPool pool(int maxTotal, int maxIdle, Duration maxIdleTime) {
+    return new CollectionPool(new Config(maxTotal, maxIdle, maxIdleTime, Duration.ZERO),
+        Collection::isOpen, source);
+  }
+
+  @Test
+  void testGetCollectionReused() throws XMLDBException {
+    CollectionPool pool = pool(2, 2, Duration.ofMinutes(1));
+    when(source.getCollection(URI, "user", "password")).thenReturn(collectionOne);
+    when(collectionOne.isOpen()).thenReturn(true);
+    when(collectionOne.getName()).thenReturn("collection");
+
+    pool.getCollection(URI, "user", "password").close();
+    assertThat(pool.getIdleCount()).isEqualTo(1);
+
+    try (Collection lease = pool.getCollection(URI, "user", "password")) {
+      assertThat(lease.getName()).isEqualTo("collection");
+    }
+    assertThat(pool.getIdleCount()).isEqualTo(1);
+  }
+
+  @Test
+  void testGetCollectionPerPrincipal() throws XMLDBException {
+    CollectionPool pool = pool(2, 2, Duration.ofMinutes(1));
+    when(source.getCollection(URI, "user", "password")).thenReturn(collectionOne);
+    when(source.getCollection(URI, "other", "password")).thenReturn(collectionTwo);
+
+    pool.getCollection(URI, "user", "password").close();
+    pool.getCollection(URI, "other", "password").close();
+
+    assertThat(pool.getIdleCount()).isEqualTo(2);
+  }
+
+  @Test
+  void testGetCollectionInvalid() throws XMLDBException {
+    CollectionPool pool = pool(2, 2, Duration.ofMinutes(1));
+    when(source.getCollection(URI, null, null)).thenReturn(collectionOne, collectionTwo);
+    when(collectionOne.isOpen()).thenReturn(false);
+
+    pool.getCollection(URI).close();
+    pool.getCollection(URI).close();
+
+    verify(collectionOne).close();
+    assertThat(pool.getIdleCount()).isEqualTo(1);
+  }
+
+  @Test
+  void testGetCollectionExhausted() throws XMLDBException {
+    CollectionPool pool = pool(1, 1, Duration.ofMinutes(1));
+    when(source.getCollection(URI, null, null)).thenReturn(collectionOne);
+
+    Collection lease = pool.getCollection(URI);
+    assertThatExceptionOfType(XMLDBException.class).isThrownBy(() -> pool.getCollection(URI))
+        .satisfies(e -> assertThat(e.errorCode).isEqualTo(UNKNOWN_ERROR));
+    lease.close();
+  }
+
+  @Test
+  void testGetCollectionNotFound() throws XMLDBException {
+    CollectionPool pool = pool(1, 1, Duration.ofMinutes(1));
+    when(source.getCollection(URI, null, null)).thenReturn(null, collectionOne);
+
+    assertThat(pool.getCollection(URI)).isNull();
+    assertThat(pool.getCollection(URI)).isNotNull();
+  }
+
+  @Test
+  void testCloseLease() throws XMLDBException {
+    CollectionPool pool = pool(1, 0, Duration.ofMinutes(1));
+    when(source.getCollection(URI, null, null)).thenReturn(collectionOne);
+
+    Collection lease = pool.getCollection(URI);
+    lease.close();
+    lease.close();
+
+    verify(collectionOne).close();
+    assertThat(lease.isOpen()).isFalse();
+    assertThatExceptionOfType(XMLDBException.class).isThrownBy(lease::getName)
+        .satisfies(e -> assertThat(e.errorCode).isEqualTo(COLLECTION_CLOSED));
+  }
+
+  @Test
+  void testEvictIdle() throws XMLDBException {
+    CollectionPool pool = pool(1, 1, Duration.ZERO);
+    when(source.getCollection(URI, null, null)).thenReturn(collectionOne);
+
+    pool.getCollection(URI).close();
+    pool.evictIdle();
+
+    verify(collectionOne).close();
+    assertThat(pool.getIdleCount()).isZero();
+  }
+
+  @Test
+  void testEvictIdleDropsUnusedPools() throws XMLDBException {
+    CollectionPool pool = pool(1, 1, Duration.ZERO);
+    when(source.getCollection(URI, "user", "password")).thenReturn(collectionOne);
+
+    Collection lease = pool.getCollection(URI, "user", "password");
+    pool.evictIdle();
+    assertThat(pool.getPoolCount()).isOne();
+
+    lease.close();
+    pool.evictIdle();
+    verify(collectionOne).close();
+    assertThat(pool.getPoolCount()).isZero();
+  }
+
+  @Test
+  void testCloseLeaseRestoresProperties() throws XMLDBException {
+    CollectionPool pool = pool(1, 1, Duration.ofMinutes(1));
+    when(source.getCollection(URI, null, null)).thenReturn(collectionOne);
+    when(collectionOne.isOpen()).thenReturn(true);
+    when(collectionOne.getProperty("key")).thenReturn("value");
+
+    Collection lease = pool.getCollection(URI);
+    lease.setProperty("key", "changed");
+    lease.setProperty("key", "changed again");
+    lease.close();
+    pool.getCollection(URI).close();
+
+    verify(source).getCollection(URI, null, null);
+    verify(collectionOne).getProperty("key");
+    verify(collectionOne).setProperty("key", "changed");
+    verify(collectionOne).setProperty("key", "changed again");
+    verify(collectionOne).setProperty("key", "value");
+    verify(collectionOne).isOpen();
+  }
+
+  @Test
+  void testCloseLeaseResetFailed() throws XMLDBException {
+    CollectionPool pool = pool(1, 1, Duration.ofMinutes(1));
+    when(source.getCollection(URI, null, null)).thenReturn(collectionOne, collectionTwo);
+    when(collectionOne.getService(XQueryService.class)).thenReturn(queryService);
+    doThrow(new XMLDBException(NOT_IMPLEMENTED)).when(queryService).clearVariables();
+
+    Collection lease = pool.getCollection(URI);
+    assertThat(lease.getService(XQueryService.class)).isSameAs(queryService);
+    lease.close();
+    pool.getCollection(URI);
+
+    verify(collectionOne).close();
+    verify(queryService).clearNamespaces();
+  }
+
+  @Test
+  void testEvictOnBorrow() throws XMLDBException {
+    CollectionPool pool = pool(2, 2, Duration.ZERO);
+    when(source.getCollection(URI, null, null)).thenReturn(collectionOne, collectionTwo);
+
+    pool.getCollection(URI).close();
+    pool.getCollection(URI);
+
+    verify(collectionOne).close();
+    assertThat(pool.getIdleCount()).isZero();
+  }
+
+  @Test
+  void testCreateWithRegistry() throws XMLDBException {
+    DatabaseRegistry registry = new DatabaseRegistry();
+    registry.registerDatabase(database);
+    when(database.acceptsURI(XmldbUri.of(URI))).thenReturn(true);
+    when(database.getCollection(XmldbUri.of(URI), ConnectionOptions.EMPTY))
+        .thenReturn(collectionOne);
+    when(collectionOne.getName()).thenReturn("collection");
+
+    try (CollectionPool pool =
+        CollectionPool.create(new Config(1, 1, Duration.ofMinutes(1), Duration.ZERO), registry)) {
+      assertThat(pool.getCollection(URI).getName()).isEqualTo("collection");
+    }
+  }
+
+  @Test
+  void testClose() throws XMLDBException {
+    CollectionPool pool = pool(2, 2, Duration.ofMinutes(1));
+    when(source.getCollection(URI, null, null)).thenReturn(collectionOne, collectionTwo);
+
+    Collection leaseOne = pool.getCollection(URI);
+    Collection leaseTwo = pool.getCollection(URI);
+    leaseOne.close();
+    pool.close();
+    verify(collectionOne).close();
+
+    leaseTwo.close();
+    verify(collectionTwo).close();
+    assertThatExceptionOfType(XMLDBException.class).isThrownBy(() -> pool.getCollection(URI));
+  }
+}
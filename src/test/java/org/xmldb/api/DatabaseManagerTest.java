@@ -41,23 +41,51 @@ package org.xmldb.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.xmldb.api.base.ErrorCodes.INSTANCE_NAME_ALREADY_REGISTERED;
+import static org.xmldb.api.base.ErrorCodes.INVALID_URI;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_COLLECTION;
 import static org.xmldb.api.base.ErrorCodes.NO_SUCH_DATABASE;
-
+import static org.xmldb.api.base.ErrorCodes.PERMISSION_DENIED;
+import static org.xmldb.api.base.ErrorCodes.UNKNOWN_ERROR;
+import static org.xmldb.api.base.ErrorCodes.VENDOR_ERROR;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.ConnectionOptions;
 import org.xmldb.api.base.Database;
 import org.xmldb.api.base.DatabaseAction;
 import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
 
 @ExtendWith(MockitoExtension.class)
 class DatabaseManagerTest {
@@ -69,11 +97,16 @@ class DatabaseManagerTest {
   DatabaseAction dbAction;
   @Mock
   Collection collection;
+  @Mock
+  Collection replicaCollection;
 
   @AfterEach
   void tearDown() {
     DatabaseManager.getDatabases().forEach(DatabaseManager::deregisterDatabase);
     DatabaseManager.setProperty("key", null);
+    DatabaseManager.setAsyncExecutor(null);
+    DatabaseManager.setHedgingDelay(null);
+    DatabaseManager.setCircuitBreakerPolicy(null);
     verifyNoMoreInteractions(dbOne, dbTwo, dbAction, collection);
   }
 
@@ -97,6 +130,84 @@ class DatabaseManagerTest {
     assertThat(DatabaseManager.getDatabases()).containsExactlyInAnyOrder(dbOne, dbTwo);
   }
 
+  @Test
+  void testLoadDatabases(@TempDir Path servicesDir) throws IOException, XMLDBException {
+    Path services = servicesDir.resolve("META-INF/services/org.xmldb.api.base.Database");
+    Files.createDirectories(services.getParent());
+    Files.writeString(services, ProvidedDatabase.class.getName());
+    int instances = ProvidedDatabase.INSTANCES.get();
+
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {servicesDir.toUri().toURL()}, getClass().getClassLoader())) {
+      DatabaseManager.loadDatabases(loader);
+      DatabaseManager.loadDatabases(loader);
+    }
+
+    assertThat(DatabaseManager.getDatabases()).hasSize(1);
+    assertThat(ProvidedDatabase.INSTANCES.get()).isEqualTo(instances);
+    assertThat(DatabaseManager.getConformanceLevel("xmldb:provided:collection")).isEqualTo("1");
+    assertThat(ProvidedDatabase.INSTANCES.get()).isEqualTo(instances + 1);
+    assertThat(DatabaseManager.getDatabases()).singleElement()
+        .isInstanceOf(ProvidedDatabase.class);
+  }
+
+  @Test
+  void testLoadDatabasesRegisteredInstance(@TempDir Path servicesDir)
+      throws IOException, XMLDBException {
+    Path services = servicesDir.resolve("META-INF/services/org.xmldb.api.base.Database");
+    Files.createDirectories(services.getParent());
+    Files.writeString(services, ProvidedDatabase.class.getName());
+    ProvidedDatabase first = new ProvidedDatabase();
+    ProvidedDatabase second = new ProvidedDatabase();
+
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {servicesDir.toUri().toURL()}, getClass().getClassLoader())) {
+      DatabaseManager.loadDatabases(loader);
+      DatabaseManager.registerDatabase(first);
+      DatabaseManager.loadDatabases(loader);
+    }
+    assertThat(DatabaseManager.getDatabases()).containsExactly(first);
+
+    DatabaseManager.deregisterDatabase(first);
+    DatabaseManager.registerDatabase(second);
+    assertThat(DatabaseManager.getDatabases()).containsExactly(second);
+  }
+
+  @Test
+  void testLoadDatabasesBrokenProvider(@TempDir Path servicesDir) throws IOException {
+    Path services = servicesDir.resolve("META-INF/services/org.xmldb.api.base.Database");
+    Files.createDirectories(services.getParent());
+    Files.writeString(services,
+        "org.xmldb.api.MissingDatabase\n" + ProvidedDatabase.class.getName());
+
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {servicesDir.toUri().toURL()}, getClass().getClassLoader())) {
+      DatabaseManager.loadDatabases(loader);
+    }
+
+    assertThat(DatabaseManager.getDatabases()).hasSize(1);
+  }
+
+  @Test
+  void testLoadDatabasesFailingProvider(@TempDir Path servicesDir)
+      throws IOException, XMLDBException {
+    Path services = servicesDir.resolve("META-INF/services/org.xmldb.api.base.Database");
+    Files.createDirectories(services.getParent());
+    Files.writeString(services, FailingDatabase.class.getName());
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {servicesDir.toUri().toURL()}, getClass().getClassLoader())) {
+      DatabaseManager.loadDatabases(loader);
+    }
+    DatabaseManager.registerDatabase(dbOne);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getConformanceLevel()).thenReturn("1");
+
+    // the failing instantiation is only an error of the provided database
+    assertThat(DatabaseManager.getConformanceLevel("xmldb:dbName:collection")).isEqualTo("1");
+    assertThat(DatabaseManager.getConformanceLevel("xmldb:dbName:collection")).isEqualTo("1");
+  }
+
   @Test
   void testDeregisterDatabase() throws XMLDBException {
     DatabaseManager.registerDatabase(dbOne);
@@ -112,10 +223,10 @@ class DatabaseManagerTest {
   @Test
   void testGetCollection() throws XMLDBException {
     DatabaseManager.registerDatabase(dbOne);
-    Properties info = new Properties();
 
-    when(dbOne.acceptsURI("xmldb:dbName:collection")).thenReturn(true);
-    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection(XmldbUri.of("xmldb:dbName:collection"), ConnectionOptions.EMPTY))
+        .thenReturn(collection);
 
     assertThat(DatabaseManager.getCollection("xmldb:dbName:collection")).isEqualTo(collection);
   }
@@ -123,12 +234,11 @@ class DatabaseManagerTest {
   @Test
   void testGetCollectionUserPassword() throws XMLDBException {
     DatabaseManager.registerDatabase(dbOne);
-    Properties info = new Properties();
-    info.setProperty("user", "username1");
-    info.setProperty("password", "password1");
+    ConnectionOptions options = ConnectionOptions.of("username1", "password1");
 
-    when(dbOne.acceptsURI("xmldb:dbName:collection")).thenReturn(true);
-    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection(XmldbUri.of("xmldb:dbName:collection"), options))
+        .thenReturn(collection);
 
     assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", "username1", "password1"))
         .isEqualTo(collection);
@@ -141,23 +251,575 @@ class DatabaseManagerTest {
     info.setProperty("user", "username2");
     info.setProperty("password", "password2");
 
-    when(dbOne.acceptsURI("xmldb:dbName:collection")).thenReturn(true);
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(collection);
+  }
+
+  @Test
+  void testGetCollectionConnectionOptions() throws XMLDBException {
+    DatabaseManager.registerDatabase(dbOne);
+    ConnectionOptions options =
+        ConnectionOptions.of("username2", "password2").with(ConnectionOptions.FETCH_SIZE, 100);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection(XmldbUri.of("xmldb:dbName:collection"), options))
+        .thenReturn(collection);
+
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", options))
+        .isEqualTo(collection);
+  }
+
+  @Test
+  void testGetCollectionPrefixed() throws XMLDBException {
+    DatabaseManager.registerDatabase(dbTwo);
+    DatabaseManager.registerDatabase(dbOne, null, Set.of("xmldb:dbName:"));
+    Properties info = new Properties();
+
+    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(collection);
+  }
+
+  @Test
+  void testGetCollectionPrefixedFallback() throws XMLDBException {
+    DatabaseManager.registerDatabase(dbOne, null, Set.of("xmldb:otherName:"));
+    DatabaseManager.registerDatabase(dbTwo);
+    Properties info = new Properties();
+
+    when(dbTwo.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbTwo.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(collection);
+  }
+
+  @Test
+  void testGetCollectionCached() throws XMLDBException {
+    DatabaseManager.registerDatabase(dbOne);
+    DispatchCacheStatistics before = DatabaseManager.getDispatchCacheStatistics();
+    Properties info = new Properties();
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(collection);
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(collection);
+
+    verify(dbOne).acceptsURI(XmldbUri.of("xmldb:dbName:collection"));
+    verify(dbOne, times(2)).getCollection("xmldb:dbName:collection", info);
+    assertThat(DatabaseManager.getDispatchCacheStatistics()).satisfies(stats -> {
+      assertThat(stats.hits() - before.hits()).isEqualTo(1);
+      assertThat(stats.misses() - before.misses()).isEqualTo(1);
+      assertThat(stats.size()).isEqualTo(1);
+      assertThat(stats.maximumSize()).isEqualTo(DatabaseManager.DEFAULT_DISPATCH_CACHE_SIZE);
+    });
+  }
+
+  @Test
+  void testGetCollectionCachedUnknown() throws XMLDBException {
+    DatabaseManager.registerDatabase(dbOne);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(false);
+
+    for (int i = 0; i < 2; i++) {
+      assertThatExceptionOfType(XMLDBException.class)
+          .isThrownBy(() -> DatabaseManager.getCollection("xmldb:dbName:collection"))
+          .satisfies(e -> assertThat(e.errorCode).isEqualTo(NO_SUCH_DATABASE));
+    }
+    verify(dbOne).acceptsURI(XmldbUri.of("xmldb:dbName:collection"));
+  }
+
+  @Test
+  void testGetCollectionCacheInvalidated() throws XMLDBException {
+    DatabaseManager.registerDatabase(dbOne);
+    Properties info = new Properties();
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
     when(dbOne.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+    when(dbTwo.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbTwo.getCollection("xmldb:dbName:collection", info)).thenReturn(null);
 
     assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
         .isEqualTo(collection);
+    DatabaseManager.deregisterDatabase(dbOne);
+    DatabaseManager.registerDatabase(dbTwo);
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info)).isNull();
+  }
+
+  @Test
+  void testGetCollectionCacheDisabled() throws XMLDBException {
+    DatabaseManager.setDispatchCacheSize(0);
+    try {
+      DatabaseManager.registerDatabase(dbOne);
+      Properties info = new Properties();
+
+      when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+      when(dbOne.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+
+      DatabaseManager.getCollection("xmldb:dbName:collection", info);
+      DatabaseManager.getCollection("xmldb:dbName:collection", info);
+
+      verify(dbOne, times(2)).acceptsURI(XmldbUri.of("xmldb:dbName:collection"));
+      verify(dbOne, times(2)).getCollection("xmldb:dbName:collection", info);
+      assertThat(DatabaseManager.getDispatchCacheStatistics().size()).isZero();
+    } finally {
+      DatabaseManager.setDispatchCacheSize(DatabaseManager.DEFAULT_DISPATCH_CACHE_SIZE);
+    }
   }
 
   @Test
   void testGetConformanceLevel() throws XMLDBException {
     DatabaseManager.registerDatabase(dbOne);
 
-    when(dbOne.acceptsURI("xmldb:dbName:collection")).thenReturn(true);
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
     when(dbOne.getConformanceLevel()).thenReturn("1");
 
     assertThat(DatabaseManager.getConformanceLevel("xmldb:dbName:collection")).isEqualTo("1");
   }
 
+  @Test
+  void testDispatchListener() throws XMLDBException {
+    DispatchListener listener = mock(DispatchListener.class);
+    XmldbUri uri = XmldbUri.of("xmldb:dbName:collection");
+    XMLDBException error = new XMLDBException();
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.registerDatabase(dbTwo);
+    DatabaseManager.addDispatchListener(listener);
+    try {
+      when(dbOne.acceptsURI(uri)).thenReturn(true);
+      when(dbOne.getConformanceLevel()).thenThrow(error);
+      when(dbTwo.acceptsURI(uri)).thenReturn(true);
+      when(dbTwo.getConformanceLevel()).thenReturn("1");
+
+      assertThat(DatabaseManager.getConformanceLevel("xmldb:dbName:collection")).isEqualTo("1");
+
+      verify(listener).dispatchStarted(uri);
+      verify(listener).attemptEnded(eq(uri), eq(dbOne), anyLong(), same(error));
+      verify(listener).attemptEnded(eq(uri), eq(dbTwo), anyLong(), isNull());
+      verify(listener).dispatchEnded(eq(uri), eq(dbTwo), anyLong(), isNull());
+      verifyNoMoreInteractions(listener);
+    } finally {
+      DatabaseManager.removeDispatchListener(listener);
+    }
+  }
+
+  @Test
+  void testDispatchListenerRuntimeException() throws XMLDBException {
+    DispatchListener listener = mock(DispatchListener.class);
+    XmldbUri uri = XmldbUri.of("xmldb:dbName:collection");
+    IllegalStateException error = new IllegalStateException();
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.addDispatchListener(listener);
+    try {
+      when(dbOne.acceptsURI(uri)).thenReturn(true);
+      when(dbOne.getConformanceLevel()).thenThrow(error);
+
+      assertThatExceptionOfType(IllegalStateException.class)
+          .isThrownBy(() -> DatabaseManager.getConformanceLevel("xmldb:dbName:collection"))
+          .satisfies(e -> assertThat(e).isSameAs(error));
+
+      verify(listener).dispatchStarted(uri);
+      verify(listener).attemptEnded(eq(uri), eq(dbOne), anyLong(),
+          argThat(e -> e.errorCode == UNKNOWN_ERROR && e.getCause() == error));
+      verify(listener).dispatchEnded(eq(uri), eq(dbOne), anyLong(),
+          argThat(e -> e.errorCode == UNKNOWN_ERROR && e.getCause() == error));
+      verifyNoMoreInteractions(listener);
+    } finally {
+      DatabaseManager.removeDispatchListener(listener);
+    }
+  }
+
+  @Test
+  void testDispatchListenerUnresolved() {
+    DispatchListener listener = mock(DispatchListener.class);
+    XmldbUri uri = XmldbUri.of("xmldb:dbName:collection");
+    DatabaseManager.addDispatchListener(listener);
+    try {
+      assertThatExceptionOfType(XMLDBException.class)
+          .isThrownBy(() -> DatabaseManager.getConformanceLevel("xmldb:dbName:collection"));
+
+      verify(listener).dispatchStarted(uri);
+      verify(listener).dispatchEnded(eq(uri), isNull(), anyLong(),
+          argThat(e -> e.errorCode == NO_SUCH_DATABASE));
+      verifyNoMoreInteractions(listener);
+    } finally {
+      DatabaseManager.removeDispatchListener(listener);
+    }
+  }
+
+  @Test
+  void testDispatchListenerDeregistered() throws XMLDBException {
+    DispatchListener listener = mock(DispatchListener.class);
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.addDispatchListener(listener);
+    try {
+      DatabaseManager.deregisterDatabase(dbOne);
+
+      verify(listener).databaseDeregistered(dbOne);
+      verifyNoMoreInteractions(listener);
+    } finally {
+      DatabaseManager.removeDispatchListener(listener);
+    }
+  }
+
+  @Test
+  void testDispatchListenerHedgedWinner() throws Exception {
+    DispatchListener listener = mock(DispatchListener.class);
+    XmldbUri uri = XmldbUri.of("xmldb:dbName:collection");
+    DatabaseManager.setHedgingDelay(Duration.ofMillis(10));
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.registerDatabase(dbTwo);
+    DatabaseManager.addDispatchListener(listener);
+    try {
+      Properties info = new Properties();
+      CountDownLatch slow = new CountDownLatch(1);
+      when(dbOne.acceptsURI(uri)).thenReturn(true);
+      when(dbTwo.acceptsURI(uri)).thenReturn(true);
+      when(dbOne.getCollection("xmldb:dbName:collection", info)).thenAnswer(invocation -> {
+        slow.await();
+        return replicaCollection;
+      });
+      when(dbTwo.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+
+      assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
+          .isEqualTo(collection);
+      slow.countDown();
+      verify(replicaCollection, timeout(5000)).close();
+
+      verify(listener, timeout(5000)).attemptEnded(eq(uri), eq(dbOne), anyLong(), isNull());
+      verify(listener).dispatchEnded(eq(uri), eq(dbTwo), anyLong(), isNull());
+    } finally {
+      DatabaseManager.removeDispatchListener(listener);
+    }
+  }
+
+  @Test
+  void testCircuitBreaker() throws XMLDBException {
+    DatabaseManager.setDispatchCacheSize(0);
+    try {
+      DatabaseManager.setCircuitBreakerPolicy(new CircuitBreakerPolicy(2, Duration.ofHours(1)));
+      DatabaseManager.registerDatabase(dbOne);
+      DatabaseManager.registerDatabase(dbTwo);
+      XmldbUri uri = XmldbUri.of("xmldb:dbName:collection");
+
+      when(dbOne.acceptsURI(uri)).thenReturn(true);
+      when(dbOne.getConformanceLevel()).thenThrow(new XMLDBException(VENDOR_ERROR));
+      when(dbTwo.acceptsURI(uri)).thenReturn(true);
+      when(dbTwo.getConformanceLevel()).thenReturn("1");
+
+      for (int i = 0; i < 3; i++) {
+        assertThat(DatabaseManager.getConformanceLevel("xmldb:dbName:collection")).isEqualTo("1");
+      }
+
+      verify(dbOne, times(3)).acceptsURI(uri);
+      verify(dbOne, times(2)).getConformanceLevel();
+      verify(dbTwo, times(3)).getConformanceLevel();
+      assertThat(DatabaseManager.getCircuitBreakerStatus()).containsExactly(
+          new CircuitBreakerStatus(dbOne, CircuitBreakerStatus.State.OPEN, 2),
+          new CircuitBreakerStatus(dbTwo, CircuitBreakerStatus.State.CLOSED, 0));
+    } finally {
+      DatabaseManager.setDispatchCacheSize(DatabaseManager.DEFAULT_DISPATCH_CACHE_SIZE);
+    }
+  }
+
+  @Test
+  void testCircuitBreakerAllOpen() throws XMLDBException {
+    DatabaseManager.setCircuitBreakerPolicy(new CircuitBreakerPolicy(1, Duration.ofHours(1)));
+    DatabaseManager.registerDatabase(dbOne);
+    XMLDBException error = new XMLDBException(VENDOR_ERROR);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getConformanceLevel()).thenThrow(error);
+
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.getConformanceLevel("xmldb:dbName:collection"))
+        .satisfies(e -> assertThat(e).isSameAs(error));
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.getConformanceLevel("xmldb:dbName:collection"))
+        .satisfies(e -> assertThat(e.errorCode).isEqualTo(NO_SUCH_DATABASE));
+
+    DatabaseManager.setCircuitBreakerPolicy(new CircuitBreakerPolicy(1, Duration.ofHours(1)));
+    assertThat(DatabaseManager.getCircuitBreakerStatus())
+        .containsExactly(new CircuitBreakerStatus(dbOne, CircuitBreakerStatus.State.CLOSED, 0));
+  }
+
+  @Test
+  void testCircuitBreakerRuntimeException() throws XMLDBException {
+    DatabaseManager.setCircuitBreakerPolicy(new CircuitBreakerPolicy(1, Duration.ZERO));
+    DatabaseManager.registerDatabase(dbOne);
+    IllegalStateException error = new IllegalStateException();
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getConformanceLevel()).thenThrow(error).thenThrow(error).thenReturn("1");
+
+    for (int i = 0; i < 2; i++) {
+      assertThatExceptionOfType(IllegalStateException.class)
+          .isThrownBy(() -> DatabaseManager.getConformanceLevel("xmldb:dbName:collection"))
+          .isSameAs(error);
+      // the failed trial request reopens the circuit instead of keeping it half open
+      assertThat(DatabaseManager.getCircuitBreakerStatus()).containsExactly(
+          new CircuitBreakerStatus(dbOne, CircuitBreakerStatus.State.OPEN, i + 1));
+    }
+    assertThat(DatabaseManager.getConformanceLevel("xmldb:dbName:collection")).isEqualTo("1");
+    assertThat(DatabaseManager.getCircuitBreakerStatus())
+        .containsExactly(new CircuitBreakerStatus(dbOne, CircuitBreakerStatus.State.CLOSED, 0));
+  }
+
+  @Test
+  void testCircuitBreakerRequestError() throws XMLDBException {
+    DatabaseManager.setCircuitBreakerPolicy(new CircuitBreakerPolicy(1, Duration.ZERO));
+    DatabaseManager.registerDatabase(dbOne);
+    XMLDBException error = new XMLDBException(PERMISSION_DENIED);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getConformanceLevel()).thenThrow(new XMLDBException(VENDOR_ERROR))
+        .thenThrow(error);
+
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.getConformanceLevel("xmldb:dbName:collection"));
+    assertThat(DatabaseManager.getCircuitBreakerStatus())
+        .containsExactly(new CircuitBreakerStatus(dbOne, CircuitBreakerStatus.State.OPEN, 1));
+    // the trial request denied for the user proves that the database is alive
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.getConformanceLevel("xmldb:dbName:collection"))
+        .isSameAs(error);
+    assertThat(DatabaseManager.getCircuitBreakerStatus())
+        .containsExactly(new CircuitBreakerStatus(dbOne, CircuitBreakerStatus.State.CLOSED, 0));
+  }
+
+  @Test
+  void testGetCollectionAsync() throws XMLDBException {
+    DatabaseManager.setAsyncExecutor(Runnable::run);
+    DatabaseManager.registerDatabase(dbOne);
+    ConnectionOptions options = ConnectionOptions.of("username1", "password1");
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection(XmldbUri.of("xmldb:dbName:collection"), options))
+        .thenReturn(collection);
+
+    assertThat(DatabaseManager
+        .getCollectionAsync("xmldb:dbName:collection", "username1", "password1")
+        .toCompletableFuture().join()).isEqualTo(collection);
+  }
+
+  @Test
+  void testGetCollectionAsyncError() throws XMLDBException {
+    DatabaseManager.setAsyncExecutor(Runnable::run);
+    DatabaseManager.registerDatabase(dbOne);
+    XMLDBException error = new XMLDBException();
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection(XmldbUri.of("xmldb:dbName:collection"), ConnectionOptions.EMPTY))
+        .thenThrow(error);
+
+    assertThatExceptionOfType(CompletionException.class)
+        .isThrownBy(() -> DatabaseManager.getCollectionAsync("xmldb:dbName:collection")
+            .toCompletableFuture().join())
+        .withCause(error);
+  }
+
+  @Test
+  void testGetConformanceLevelAsync() throws XMLDBException {
+    DatabaseManager.registerDatabase(dbOne);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getConformanceLevel()).thenReturn("1");
+
+    assertThat(DatabaseManager.getConformanceLevelAsync("xmldb:dbName:collection")
+        .toCompletableFuture().join()).isEqualTo("1");
+  }
+
+  @Test
+  void testGetConformanceLevelAsyncError() throws XMLDBException {
+    DatabaseManager.setAsyncExecutor(Runnable::run);
+    DatabaseManager.registerDatabase(dbOne);
+    LinkageError error = new LinkageError();
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getConformanceLevel()).thenThrow(error);
+
+    assertThat(DatabaseManager.getConformanceLevelAsync("xmldb:dbName:collection"))
+        .failsWithin(Duration.ZERO).withThrowableOfType(ExecutionException.class)
+        .withCause(error);
+  }
+
+  @Test
+  void testGetAsyncExecutor() {
+    Executor executor = Runnable::run;
+    assertThat(DatabaseManager.getAsyncExecutor()).isNotNull();
+
+    DatabaseManager.setAsyncExecutor(executor);
+    assertThat(DatabaseManager.getAsyncExecutor()).isSameAs(executor);
+  }
+
+  @Test
+  void testGetCollectionHedgedFailover() throws XMLDBException {
+    DatabaseManager.setAsyncExecutor(Runnable::run);
+    DatabaseManager.setHedgingDelay(Duration.ofMinutes(1));
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.registerDatabase(dbTwo);
+    Properties info = new Properties();
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbTwo.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenThrow(new XMLDBException());
+    when(dbTwo.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(collection);
+  }
+
+  @Test
+  void testGetCollectionHedgedSlowReplica() throws Exception {
+    DatabaseManager.setHedgingDelay(Duration.ofMillis(10));
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.registerDatabase(dbTwo);
+    Properties info = new Properties();
+    CountDownLatch slow = new CountDownLatch(1);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbTwo.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenAnswer(invocation -> {
+      slow.await();
+      return replicaCollection;
+    });
+    when(dbTwo.getCollection("xmldb:dbName:collection", info)).thenReturn(collection);
+
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(collection);
+    slow.countDown();
+    verify(replicaCollection, timeout(5000)).close();
+  }
+
+  @Test
+  void testGetCollectionHedgedAllFailing() throws XMLDBException {
+    DatabaseManager.setAsyncExecutor(Runnable::run);
+    DatabaseManager.setHedgingDelay(Duration.ZERO);
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.registerDatabase(dbTwo);
+    Properties info = new Properties();
+    XMLDBException error = new XMLDBException();
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbTwo.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenThrow(error);
+    when(dbTwo.getCollection("xmldb:dbName:collection", info)).thenThrow(new XMLDBException());
+
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(error);
+  }
+
+  @Test
+  void testGetCollectionHedgedRuntimeFailure() throws XMLDBException {
+    DatabaseManager.setHedgingDelay(Duration.ofMinutes(1));
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.registerDatabase(dbTwo);
+    Properties info = new Properties();
+    IllegalStateException error = new IllegalStateException();
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbTwo.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenThrow(new XMLDBException());
+    when(dbTwo.getCollection("xmldb:dbName:collection", info)).thenThrow(error);
+
+    assertThat(DatabaseManager.getCollectionAsync("xmldb:dbName:collection", info))
+        .failsWithin(Duration.ofSeconds(5)).withThrowableOfType(ExecutionException.class)
+        .withCause(error);
+  }
+
+  @Test
+  void testGetCollectionHedgedFirstFailingLast() throws Exception {
+    DatabaseManager.setHedgingDelay(Duration.ZERO);
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.registerDatabase(dbTwo);
+    Properties info = new Properties();
+    XMLDBException error = new XMLDBException(VENDOR_ERROR);
+    CountDownLatch failed = new CountDownLatch(1);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbTwo.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection("xmldb:dbName:collection", info)).thenAnswer(invocation -> {
+      failed.await();
+      throw error;
+    });
+    when(dbTwo.getCollection("xmldb:dbName:collection", info)).thenAnswer(invocation -> {
+      failed.countDown();
+      throw new XMLDBException(NO_SUCH_COLLECTION);
+    });
+
+    // the failure of the first database is reported although it failed last
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(error);
+  }
+
+  @Test
+  void testGetCollectionHedgedRejected() throws XMLDBException {
+    DatabaseManager.setAsyncExecutor(command -> {
+      throw new RejectedExecutionException();
+    });
+    DatabaseManager.setHedgingDelay(Duration.ZERO);
+    DatabaseManager.registerDatabase(dbOne);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+
+    assertThatExceptionOfType(RejectedExecutionException.class)
+        .isThrownBy(() -> DatabaseManager.getCollection("xmldb:dbName:collection"));
+  }
+
+  @Test
+  void testGetCollectionHedgedCircuitBreaker() throws XMLDBException {
+    DatabaseManager.setAsyncExecutor(Runnable::run);
+    DatabaseManager.setHedgingDelay(Duration.ofMinutes(1));
+    DatabaseManager.setCircuitBreakerPolicy(new CircuitBreakerPolicy(1, Duration.ZERO));
+    DatabaseManager.registerDatabase(dbOne);
+    DatabaseManager.registerDatabase(dbTwo);
+    Properties info = new Properties();
+    XMLDBException error = new XMLDBException(VENDOR_ERROR);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbTwo.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection("xmldb:dbName:collection", info))
+        .thenThrow(new XMLDBException(NO_SUCH_COLLECTION)).thenReturn(collection);
+    when(dbTwo.getCollection("xmldb:dbName:collection", info)).thenThrow(error);
+
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(error);
+    assertThat(DatabaseManager.getCollection("xmldb:dbName:collection", info))
+        .isEqualTo(collection);
+
+    // the breaker of the database not attempted must not have been moved to half open
+    assertThat(DatabaseManager.getCircuitBreakerStatus()).containsExactly(
+        new CircuitBreakerStatus(dbOne, CircuitBreakerStatus.State.CLOSED, 0),
+        new CircuitBreakerStatus(dbTwo, CircuitBreakerStatus.State.OPEN, 1));
+  }
+
+  @Test
+  void testGetCollectionHedgedUnknown() {
+    DatabaseManager.setHedgingDelay(Duration.ZERO);
+
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.getCollection("xmldb:dbName:collection"))
+        .satisfies(e -> assertThat(e.errorCode).isEqualTo(NO_SUCH_DATABASE));
+  }
+
+  @Test
+  void testSetHedgingDelay() {
+    DatabaseManager.setHedgingDelay(Duration.ofMillis(5));
+    assertThat(DatabaseManager.getHedgingDelay()).isEqualTo(Duration.ofMillis(5));
+
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> DatabaseManager.setHedgingDelay(Duration.ofMillis(-1)));
+  }
+
   @Test
   void testGetProperty() {
     DatabaseManager.setProperty("key", "value");
@@ -183,13 +845,31 @@ class DatabaseManagerTest {
         });
   }
 
+  @Test
+  void testRegisterDatabase_invalidUriPrefix() {
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.registerDatabase(dbOne, null, Set.of("xmldb:dbName")))
+        .satisfies(e -> {
+          assertThat(e.errorCode).isEqualTo(INVALID_URI);
+          assertThat(e.vendorErrorCode).isZero();
+        });
+    assertThat(DatabaseManager.getDatabases()).isEmpty();
+  }
+
+  @Test
+  void testGetCollectionNullUri() {
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> DatabaseManager.getCollection(null))
+        .satisfies(e -> assertThat(e.errorCode).isEqualTo(INVALID_URI));
+  }
+
   @Test
   void testWithDatabaseConnectionError() throws XMLDBException {
     Properties info = new Properties();
     XMLDBException error = new XMLDBException();
     DatabaseManager.registerDatabase(dbOne);
 
-    when(dbOne.acceptsURI("xmldb:somedb:collection")).thenReturn(true);
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:somedb:collection"))).thenReturn(true);
     when(dbOne.getCollection("xmldb:somedb:collection", info)).thenThrow(error);
 
     assertThatExceptionOfType(XMLDBException.class)
@@ -204,7 +884,7 @@ class DatabaseManagerTest {
     DatabaseManager.registerDatabase(dbOne);
     DatabaseManager.registerDatabase(dbTwo);
 
-    when(dbOne.acceptsURI("xmldb:somedb:collection")).thenReturn(true);
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:somedb:collection"))).thenReturn(true);
     when(dbOne.getCollection("xmldb:somedb:collection", info)).thenReturn(null);
 
     assertThat((Collection) DatabaseManager.withDatabase("xmldb:somedb:collection",
@@ -0,0 +1,210 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_DATABASE;
+import static org.xmldb.api.base.ErrorCodes.VENDOR_ERROR;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.xmldb.api.DatabaseIndex.Resolution;
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.ConnectionOptions;
+import org.xmldb.api.base.Database;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseRegistryTest {
+  @Mock
+  Database dbOne;
+  @Mock
+  Database dbTwo;
+  @Mock
+  Database dbThree;
+  @Mock
+  Collection collection;
+
+  @AfterEach
+  void tearDown() {
+    verifyNoMoreInteractions(dbOne, dbTwo, dbThree, collection);
+  }
+
+  @Test
+  void testDefaultRegistry() {
+    assertThat(DatabaseManager.getDefaultRegistry()).isSameAs(DatabaseManager.getDefaultRegistry());
+  }
+
+  @Test
+  void testDatabasesIsolated() throws XMLDBException {
+    DatabaseRegistry first = new DatabaseRegistry();
+    DatabaseRegistry second = new DatabaseRegistry();
+
+    first.registerDatabase(dbOne);
+    second.registerDatabase(dbTwo);
+
+    assertThat(first.getDatabases()).containsExactly(dbOne);
+    assertThat(second.getDatabases()).containsExactly(dbTwo);
+    assertThat(DatabaseManager.getDatabases()).doesNotContain(dbOne, dbTwo);
+
+    first.deregisterDatabase(dbOne);
+    assertThat(first.getDatabases()).isEmpty();
+    assertThat(second.getDatabases()).containsExactly(dbTwo);
+  }
+
+  @Test
+  void testPropertiesIsolated() {
+    DatabaseRegistry first = new DatabaseRegistry();
+    DatabaseRegistry second = new DatabaseRegistry();
+
+    first.setProperty("key", "value");
+
+    assertThat(first.getProperty("key")).isEqualTo("value");
+    assertThat(second.getProperty("key")).isNull();
+    assertThat(DatabaseManager.getProperty("key")).isNull();
+  }
+
+  @Test
+  void testGetCollection() throws XMLDBException {
+    DatabaseRegistry first = new DatabaseRegistry();
+    DatabaseRegistry second = new DatabaseRegistry();
+    first.registerDatabase(dbOne);
+
+    when(dbOne.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbOne.getCollection(XmldbUri.of("xmldb:dbName:collection"), ConnectionOptions.EMPTY))
+        .thenReturn(collection);
+
+    assertThat(first.getCollection("xmldb:dbName:collection")).isEqualTo(collection);
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> second.getCollection("xmldb:dbName:collection"))
+        .satisfies(e -> assertThat(e.errorCode).isEqualTo(NO_SUCH_DATABASE));
+  }
+
+  @Test
+  void testGetDatabasesOrdered() throws XMLDBException {
+    DatabaseRegistry registry = new DatabaseRegistry();
+
+    registry.registerDatabase(dbOne);
+    registry.registerDatabase(dbTwo, null, Set.of(), 10);
+    registry.registerDatabase(dbThree, null, Set.of(), -5);
+
+    assertThat(registry.getDatabases()).containsExactly(dbTwo, dbOne, dbThree);
+
+    registry.deregisterDatabase(dbTwo);
+    registry.registerDatabase(dbTwo);
+    assertThat(registry.getDatabases()).containsExactly(dbOne, dbTwo, dbThree);
+  }
+
+  @Test
+  void testGetCollectionPriority() throws XMLDBException {
+    DatabaseRegistry registry = new DatabaseRegistry();
+    registry.registerDatabase(dbOne);
+    registry.registerDatabase(dbTwo, null, Set.of(), 10);
+
+    when(dbTwo.acceptsURI(XmldbUri.of("xmldb:dbName:collection"))).thenReturn(true);
+    when(dbTwo.getCollection(XmldbUri.of("xmldb:dbName:collection"), ConnectionOptions.EMPTY))
+        .thenReturn(collection);
+
+    assertThat(registry.getCollection("xmldb:dbName:collection")).isEqualTo(collection);
+  }
+
+  @Test
+  void testGetCollectionPriorityPrefixed() throws XMLDBException {
+    DatabaseRegistry registry = new DatabaseRegistry();
+    registry.registerDatabase(dbOne, null, Set.of("xmldb:dbName:"));
+    registry.registerDatabase(dbTwo, null, Set.of("xmldb:dbName:"), 10);
+
+    when(dbTwo.getCollection(XmldbUri.of("xmldb:dbName:collection"), ConnectionOptions.EMPTY))
+        .thenReturn(collection);
+
+    assertThat(registry.getCollection("xmldb:dbName:collection")).isEqualTo(collection);
+  }
+
+  @Test
+  void testResolveCachedUri() throws XMLDBException {
+    DatabaseIndex index = DatabaseIndex.of(List.of(), 2);
+    XmldbUri first = XmldbUri.of("xmldb:dbName:first");
+    XmldbUri second = XmldbUri.of("xmldb:dbName:second");
+
+    index.resolve(first, Resolution.NONE);
+    index.resolve(second, Resolution.NONE);
+    index.resolve(first, Resolution.NONE);
+
+    assertThat(index.size()).isEqualTo(2);
+    assertThat(index.resolved(first)).isEqualTo(Resolution.NONE);
+    assertThat(index.resolved(second)).isEqualTo(Resolution.NONE);
+  }
+
+  @Test
+  void testGetCollectionFirstFailingOnce() throws XMLDBException {
+    DatabaseRegistry registry = new DatabaseRegistry();
+    registry.registerDatabase(dbOne);
+    registry.registerDatabase(dbTwo);
+    XmldbUri uri = XmldbUri.of("xmldb:dbName:collection");
+
+    when(dbOne.acceptsURI(uri)).thenReturn(true);
+    when(dbOne.getCollection(uri, ConnectionOptions.EMPTY))
+        .thenThrow(new XMLDBException(VENDOR_ERROR)).thenReturn(collection);
+    when(dbTwo.acceptsURI(uri)).thenReturn(true);
+    when(dbTwo.getCollection(uri, ConnectionOptions.EMPTY)).thenReturn(null);
+
+    assertThat(registry.getCollection("xmldb:dbName:collection")).isNull();
+    // the first accepting database is tried first again once it has recovered
+    assertThat(registry.getCollection("xmldb:dbName:collection")).isEqualTo(collection);
+    assertThat(registry.getCollection("xmldb:dbName:collection")).isEqualTo(collection);
+
+    verify(dbOne).acceptsURI(uri);
+    verify(dbTwo).acceptsURI(uri);
+    verify(dbOne, times(3)).getCollection(uri, ConnectionOptions.EMPTY);
+    verify(dbTwo).getCollection(uri, ConnectionOptions.EMPTY);
+  }
+}
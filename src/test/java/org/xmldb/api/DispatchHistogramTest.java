@@ -0,0 +1,123 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_DATABASE;
+import static org.xmldb.api.base.ErrorCodes.VENDOR_ERROR;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.xmldb.api.DispatchHistogram.Histogram;
+import org.xmldb.api.DispatchHistogram.Statistics;
+import org.xmldb.api.base.Database;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.base.XmldbUri;
+
+@ExtendWith(MockitoExtension.class)
+class DispatchHistogramTest {
+  private static final XmldbUri URI = XmldbUri.of("xmldb:dbName:collection");
+
+  @Mock
+  Database dbOne;
+  @Mock
+  Database dbTwo;
+
+  @Test
+  void testStatistics() {
+    DispatchHistogram histogram = new DispatchHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.attemptEnded(URI, dbOne, i * 1000L, null);
+    }
+    histogram.attemptEnded(URI, dbTwo, 5L, new XMLDBException(VENDOR_ERROR));
+
+    Statistics statistics = histogram.getStatistics(dbOne);
+    assertThat(statistics.count()).isEqualTo(100);
+    assertThat(statistics.errors()).isZero();
+    assertThat(statistics.p50Nanos()).isBetween(50_000L, 50_000L * 9 / 8);
+    assertThat(statistics.p99Nanos()).isBetween(99_000L, 99_000L * 9 / 8);
+    assertThat(histogram.getStatistics(dbTwo)).isEqualTo(new Statistics(1, 1, 5, 5));
+    assertThat(histogram.getStatistics()).containsOnlyKeys(dbOne, dbTwo);
+  }
+
+  @Test
+  void testDispatchCounts() {
+    DispatchHistogram histogram = new DispatchHistogram();
+    histogram.dispatchEnded(URI, dbOne, 10L, null);
+    histogram.dispatchEnded(URI, null, 10L, new XMLDBException(NO_SUCH_DATABASE));
+    histogram.dispatchEnded(URI, dbOne, 10L, new XMLDBException(VENDOR_ERROR));
+
+    assertThat(histogram.getDispatchCount()).isEqualTo(3);
+    assertThat(histogram.getUnresolvedCount()).isEqualTo(1);
+
+    histogram.reset();
+    assertThat(histogram.getDispatchCount()).isZero();
+    assertThat(histogram.getUnresolvedCount()).isZero();
+    assertThat(histogram.getStatistics(dbOne)).isNull();
+  }
+
+  @Test
+  void testDatabaseDeregistered() {
+    DispatchHistogram histogram = new DispatchHistogram();
+    histogram.attemptEnded(URI, dbOne, 10L, null);
+    histogram.attemptEnded(URI, dbTwo, 10L, null);
+
+    histogram.databaseDeregistered(dbOne);
+
+    assertThat(histogram.getStatistics(dbOne)).isNull();
+    assertThat(histogram.getStatistics()).containsOnlyKeys(dbTwo);
+    histogram.attemptEnded(URI, dbOne, 10L, null);
+    assertThat(histogram.getStatistics(dbOne)).isEqualTo(new Statistics(1, 0, 10, 10));
+  }
+
+  @Test
+  void testBuckets() {
+    long previous = -1;
+    for (long nanos = 0; nanos < 100_000; nanos++) {
+      long upperBound = Histogram.upperBound(Histogram.index(nanos));
+      assertThat(upperBound).isGreaterThanOrEqualTo(nanos).isLessThanOrEqualTo(nanos + nanos / 8);
+      assertThat(upperBound).isGreaterThanOrEqualTo(previous);
+      previous = upperBound;
+    }
+    assertThat(Histogram.upperBound(Histogram.index(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.xmldb.api.base.ErrorCodes.COLLECTION_CLOSED;
+import static org.xmldb.api.base.ErrorCodes.INVALID_RESOURCE;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_RESOURCE;
+import static org.xmldb.api.base.ErrorCodes.VENDOR_ERROR;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CollectionTest {
+  @Mock(answer = Answers.CALLS_REAL_METHODS)
+  Collection collection;
+  @Mock
+  Resource resourceOne;
+  @Mock
+  Resource resourceTwo;
+  @Mock
+  Resource resourceThree;
+
+  @Test
+  void testStoreResources() throws XMLDBException {
+    XMLDBException error = new XMLDBException(INVALID_RESOURCE);
+    doThrow(error).when(collection).storeResource(resourceTwo);
+
+    assertThat(collection.storeResources(List.of(resourceOne, resourceTwo, resourceThree)))
+        .containsExactly(StoreResult.success(resourceOne), StoreResult.failure(resourceTwo, error),
+            StoreResult.success(resourceThree));
+    verify(collection).storeResource(resourceOne);
+    verify(collection).storeResource(resourceThree);
+  }
+
+  @Test
+  void testStoreResourcesClosed() throws XMLDBException {
+    doThrow(new XMLDBException(COLLECTION_CLOSED)).when(collection).storeResource(resourceOne);
+
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> collection.storeResources(List.of(resourceOne, resourceTwo)))
+        .satisfies(e -> assertThat(e.errorCode).isEqualTo(COLLECTION_CLOSED));
+  }
+
+  @Test
+  void testStoreResourcesNullElement() throws XMLDBException {
+    assertThatNullPointerException()
+        .isThrownBy(() -> collection.storeResources(Arrays.asList(resourceOne, null)));
+    verify(collection, never()).storeResource(resourceOne);
+  }
+
+  @Test
+  void testGetResources() throws XMLDBException {
+    when(collection.getResource("one")).thenReturn(resourceOne);
+    when(collection.getResource("missing")).thenReturn(null);
+    when(collection.getResource("three")).thenReturn(resourceThree);
+
+    assertThat(collection.getResources(List.of("one", "missing", "three")))
+        .containsExactly(Optional.of(resourceOne), Optional.empty(), Optional.of(resourceThree));
+  }
+
+  @Test
+  void testGetResourcesNoSuchResource() throws XMLDBException {
+    when(collection.getResource("one")).thenReturn(resourceOne);
+    when(collection.getResource("missing")).thenThrow(new XMLDBException(NO_SUCH_RESOURCE));
+
+    assertThat(collection.getResources(List.of("one", "missing")))
+        .containsExactly(Optional.of(resourceOne), Optional.empty());
+  }
+
+  @Test
+  void testGetResourcesFailed() throws XMLDBException {
+    XMLDBException error = new XMLDBException(VENDOR_ERROR);
+    when(collection.getResource("one")).thenThrow(error);
+
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> collection.getResources(List.of("one")))
+        .satisfies(e -> assertThat(e).isSameAs(error));
+  }
+
+  @Test
+  void testGetResourcesEmpty() throws XMLDBException {
+    assertThat(collection.getResources(List.of())).isEmpty();
+  }
+
+  @Test
+  void testListResourcesPaged() throws XMLDBException {
+    when(collection.listResources()).thenReturn(List.of("a", "b", "c", "d", "e"));
+
+    ListingPage first = collection.listResources(null, 2);
+    assertThat(first.ids()).containsExactly("a", "b");
+    assertThat(first.hasMore()).isTrue();
+    ListingPage second = collection.listResources(first.continuationToken(), 2);
+    assertThat(second.ids()).containsExactly("c", "d");
+    ListingPage last = collection.listResources(second.continuationToken(), 2);
+    assertThat(last.ids()).containsExactly("e");
+    assertThat(last.hasMore()).isFalse();
+  }
+
+  @Test
+  void testListChildCollectionsPaged() throws XMLDBException {
+    when(collection.listChildCollections()).thenReturn(List.of("a", "b"));
+
+    ListingPage page = collection.listChildCollections(null, 5);
+    assertThat(page.ids()).containsExactly("a", "b");
+    assertThat(page.hasMore()).isFalse();
+  }
+
+  @Test
+  void testListResourcesPagedInvalid() throws XMLDBException {
+    when(collection.listResources()).thenReturn(List.of("a"));
+
+    assertThatIllegalArgumentException().isThrownBy(() -> collection.listResources(null, 0));
+    assertThatIllegalArgumentException().isThrownBy(() -> collection.listResources("x", 1));
+    assertThatIllegalArgumentException().isThrownBy(() -> collection.listResources("2", 1));
+  }
+
+  @Test
+  void testStreamResources() throws XMLDBException {
+    when(collection.listResources()).thenReturn(List.of("a", "b", "c"));
+
+    Stream<String> ids = collection.streamResources(2);
+    verify(collection, never()).listResources();
+    assertThat(ids).containsExactly("a", "b", "c");
+    verify(collection).listResources();
+    verify(collection, never()).listResources(any(), anyInt());
+  }
+
+  @Test
+  void testStreamChildCollections() throws XMLDBException {
+    when(collection.listChildCollections()).thenReturn(List.of("a"));
+
+    assertThat(collection.streamChildCollections(1)).containsExactly("a");
+    verify(collection, never()).listChildCollections(any(), anyInt());
+  }
+
+  @Test
+  void testStreamResourcesFailed() throws XMLDBException {
+    XMLDBException error = new XMLDBException(COLLECTION_CLOSED);
+    doThrow(error).when(collection).listResources();
+
+    assertThatExceptionOfType(UncheckedXMLDBException.class)
+        .isThrownBy(() -> collection.streamResources(2).toList())
+        .satisfies(e -> assertThat(e.getCause()).isSameAs(error));
+  }
+
+  @Test
+  void testStreamResourcesInvalid() {
+    assertThatIllegalArgumentException().isThrownBy(() -> collection.streamResources(0));
+    assertThatIllegalArgumentException().isThrownBy(() -> ListingPage.stream((t, s) -> null, 0));
+  }
+
+  @Test
+  void testStreamPaged() throws XMLDBException {
+    doReturn(new ListingPage(List.of("a", "b"), "t1")).when(collection).listResources(null, 2);
+    doReturn(new ListingPage(List.of("c", "d"), "t2")).when(collection).listResources("t1", 2);
+
+    assertThat(ListingPage.stream(collection::listResources, 2).limit(3)).containsExactly("a", "b",
+        "c");
+    verify(collection, never()).listResources("t2", 2);
+  }
+
+  @Test
+  void testStreamPagedFailed() throws XMLDBException {
+    XMLDBException error = new XMLDBException(COLLECTION_CLOSED);
+    doThrow(error).when(collection).listChildCollections(null, 2);
+
+    assertThatExceptionOfType(UncheckedXMLDBException.class)
+        .isThrownBy(() -> ListingPage.stream(collection::listChildCollections, 2).toList())
+        .satisfies(e -> assertThat(e.getCause()).isSameAs(error));
+  }
+
+  @Test
+  void testAsync() throws XMLDBException {
+    AsyncCollection async = collection.async(Runnable::run);
+    when(collection.getResource("one")).thenReturn(resourceOne);
+    when(collection.listResources()).thenReturn(List.of("one"));
+    when(collection.getChildCollection("child")).thenReturn(collection);
+
+    assertThat(async.collection()).isSameAs(collection);
+    assertThat(async.getResource("one").toCompletableFuture()).isCompletedWithValue(resourceOne);
+    assertThat(async.storeResource(resourceTwo).toCompletableFuture()).isCompleted();
+    assertThat(async.removeResource(resourceThree).toCompletableFuture()).isCompleted();
+    assertThat(async.listResources().toCompletableFuture()).isCompletedWithValue(List.of("one"));
+    assertThat(async.getChildCollection("child").toCompletableFuture())
+        .isCompletedWithValue(collection);
+    verify(collection).storeResource(resourceTwo);
+    verify(collection).removeResource(resourceThree);
+  }
+
+  @Test
+  void testAsyncFailed() throws XMLDBException {
+    XMLDBException error = new XMLDBException(INVALID_RESOURCE);
+    doThrow(error).when(collection).storeResource(resourceOne);
+
+    assertThat(collection.async(Runnable::run).storeResource(resourceOne).toCompletableFuture())
+        .isCompletedExceptionally().failsWithin(Duration.ZERO)
+        .withThrowableOfType(ExecutionException.class).withCause(error);
+  }
+
+  @Test
+  void testAsyncError() throws XMLDBException {
+    LinkageError error = new LinkageError();
+    doThrow(error).when(collection).getResource("one");
+
+    assertThat(collection.async(Runnable::run).getResource("one").toCompletableFuture())
+        .failsWithin(Duration.ZERO).withThrowableOfType(ExecutionException.class)
+        .withCause(error);
+  }
+
+  @Test
+  void testAsyncRejected() {
+    AsyncCollection async = collection.async(command -> {
+      throw new RejectedExecutionException();
+    });
+
+    assertThat(async.getResource("one").toCompletableFuture()).isCompletedExceptionally();
+  }
+
+  @Test
+  void testStoreResult() {
+    XMLDBException error = new XMLDBException(INVALID_RESOURCE);
+
+    assertThat(StoreResult.success(resourceOne).isSuccess()).isTrue();
+    assertThat(StoreResult.failure(resourceOne, error).isSuccess()).isFalse();
+    assertThat(StoreResult.failure(resourceOne, error).error()).isSameAs(error);
+    assertThatNullPointerException().isThrownBy(() -> StoreResult.success(null));
+    assertThatNullPointerException().isThrownBy(() -> StoreResult.failure(resourceOne, null));
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SIBLINGS;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+import static java.nio.file.FileVisitResult.TERMINATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.xmldb.api.base.ErrorCodes.PERMISSION_DENIED;
+
+import java.nio.file.FileVisitResult;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CollectionWalkerTest {
+  @Mock
+  Collection root;
+  @Mock
+  Collection a;
+  @Mock
+  Collection a1;
+  @Mock
+  Collection b;
+
+  Map<Collection, String> names;
+  List<String> events;
+
+  @BeforeEach
+  void prepare() throws XMLDBException {
+    names = Map.of(root, "root", a, "a", a1, "a1", b, "b");
+    events = Collections.synchronizedList(new ArrayList<>());
+    lenient().when(root.listChildCollections()).thenReturn(List.of("a", "b"));
+    lenient().when(root.getChildCollection("a")).thenReturn(a);
+    lenient().when(root.getChildCollection("b")).thenReturn(b);
+    lenient().when(a.listChildCollections()).thenReturn(List.of("a1"));
+    lenient().when(a.getChildCollection("a1")).thenReturn(a1);
+    lenient().when(a1.listChildCollections()).thenReturn(List.of());
+    lenient().when(b.listChildCollections()).thenReturn(List.of());
+  }
+
+  CollectionVisitor recorder(BiFunction<String, Integer, FileVisitResult> preVisit) {
+    return new CollectionVisitor() {
+      @Override
+      public FileVisitResult preVisitCollection(Collection collection, int depth) {
+        events.add("pre:" + names.get(collection));
+        return preVisit.apply(names.get(collection), depth);
+      }
+
+      @Override
+      public FileVisitResult postVisitCollection(Collection collection, int depth,
+          XMLDBException error) {
+        events.add("post:" + names.get(collection));
+        return CONTINUE;
+      }
+    };
+  }
+
+  @Test
+  void testWalkSequential() throws XMLDBException {
+    CollectionWalker.sequential().walk(root, recorder((name, depth) -> CONTINUE));
+
+    assertThat(events).containsExactly("pre:root", "pre:a", "pre:a1", "post:a1", "post:a",
+        "pre:b", "post:b", "post:root");
+    verify(a).close();
+    verify(a1).close();
+    verify(b).close();
+    verify(root, never()).close();
+  }
+
+  @Test
+  void testWalkMaxDepth() throws XMLDBException {
+    CollectionWalker.sequential().withMaxDepth(1).walk(root, recorder((name, depth) -> CONTINUE));
+
+    assertThat(events).containsExactly("pre:root", "pre:a", "post:a", "pre:b", "post:b",
+        "post:root");
+    verify(a, never()).listChildCollections();
+  }
+
+  @Test
+  void testWalkSkipSubtree() throws XMLDBException {
+    CollectionWalker.sequential()
+        .walk(root, recorder((name, depth) -> "a".equals(name) ? SKIP_SUBTREE : CONTINUE));
+
+    assertThat(events).containsExactly("pre:root", "pre:a", "pre:b", "post:b", "post:root");
+    verify(a).close();
+  }
+
+  @Test
+  void testWalkSkipSiblings() throws XMLDBException {
+    CollectionWalker.sequential()
+        .walk(root, recorder((name, depth) -> "a".equals(name) ? SKIP_SIBLINGS : CONTINUE));
+
+    assertThat(events).containsExactly("pre:root", "pre:a", "post:root");
+    verify(root, never()).getChildCollection("b");
+  }
+
+  @Test
+  void testWalkTerminate() throws XMLDBException {
+    CollectionWalker.sequential()
+        .walk(root, recorder((name, depth) -> "a1".equals(name) ? TERMINATE : CONTINUE));
+
+    assertThat(events).containsExactly("pre:root", "pre:a", "pre:a1");
+    verify(a1).close();
+    verify(a).close();
+  }
+
+  @Test
+  void testWalkFailed() throws XMLDBException {
+    XMLDBException error = new XMLDBException(PERMISSION_DENIED);
+    lenient().when(root.getChildCollection("b")).thenThrow(error);
+
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> CollectionWalker.sequential().walk(root, new CollectionVisitor() {}))
+        .satisfies(e -> assertThat(e).isSameAs(error));
+    verify(a).close();
+    verify(a1).close();
+  }
+
+  @Test
+  void testWalkParallel() throws XMLDBException {
+    CollectionWalker.parallel(4).walk(root, recorder((name, depth) -> CONTINUE));
+
+    assertThat(events).containsExactlyInAnyOrder("pre:root", "pre:a", "pre:a1", "post:a1",
+        "post:a", "pre:b", "post:b", "post:root");
+    assertThat(events.indexOf("post:a")).isGreaterThan(events.indexOf("post:a1"));
+    assertThat(events.indexOf("post:root")).isEqualTo(events.size() - 1);
+    verify(a).close();
+    verify(a1).close();
+    verify(b).close();
+    verify(root, never()).close();
+  }
+
+  @Test
+  void testWalkParallelExecutor() throws XMLDBException {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      CollectionWalker.parallel(executor, 8).withMaxDepth(1)
+          .walk(root, recorder((name, depth) -> CONTINUE));
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(events).containsExactlyInAnyOrder("pre:root", "pre:a", "post:a", "pre:b",
+        "post:b", "post:root");
+    verify(a).close();
+    verify(b).close();
+  }
+
+  @Test
+  void testWalkParallelCallerRuns() throws XMLDBException {
+    CollectionWalker.parallel(Runnable::run, 1).walk(root, recorder((name, depth) -> CONTINUE));
+
+    assertThat(events).containsExactly("pre:root", "pre:a", "pre:a1", "post:a1", "post:a",
+        "pre:b", "post:b", "post:root");
+    verify(a).close();
+    verify(a1).close();
+    verify(b).close();
+  }
+
+  @Test
+  void testWalkParallelFailed() throws XMLDBException {
+    XMLDBException error = new XMLDBException(PERMISSION_DENIED);
+    lenient().when(a.getChildCollection("a1")).thenThrow(error);
+
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> CollectionWalker.parallel(4).walk(root, new CollectionVisitor() {}))
+        .satisfies(e -> assertThat(e).isSameAs(error));
+    verify(a).close();
+  }
+
+  @Test
+  void testWalkParallelError() throws XMLDBException {
+    AssertionError error = new AssertionError("a1");
+    CollectionVisitor visitor = recorder((name, depth) -> {
+      if ("a1".equals(name)) {
+        throw error;
+      }
+      return CONTINUE;
+    });
+
+    assertThatExceptionOfType(AssertionError.class)
+        .isThrownBy(() -> CollectionWalker.parallel(4).walk(root, visitor))
+        .satisfies(e -> assertThat(e).isSameAs(error));
+    verify(a1).close();
+    verify(a).close();
+  }
+
+  @Test
+  void testInvalidSettings() {
+    assertThatIllegalArgumentException().isThrownBy(() -> CollectionWalker.parallel(0));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> CollectionWalker.sequential().withMaxDepth(-1));
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+class ConnectionOptionsTest {
+  @Test
+  void testEmpty() {
+    assertThat(ConnectionOptions.of(null, null)).isSameAs(ConnectionOptions.EMPTY);
+    assertThat(ConnectionOptions.EMPTY.user()).isNull();
+    assertThat(ConnectionOptions.EMPTY.password()).isNull();
+    assertThat(ConnectionOptions.EMPTY.toProperties()).isEmpty();
+    assertThat(ConnectionOptions.EMPTY).hasToString("ConnectionOptions[]");
+  }
+
+  @Test
+  void testWith() {
+    ConnectionOptions options = ConnectionOptions.of("user", "secret");
+    ConnectionOptions changed = options.with(ConnectionOptions.FETCH_SIZE, 50);
+
+    assertThat(options.get(ConnectionOptions.FETCH_SIZE)).isNull();
+    assertThat(changed.get(ConnectionOptions.FETCH_SIZE)).isEqualTo(50);
+    assertThat(changed.user()).isEqualTo("user");
+    assertThat(changed.password()).isEqualTo("secret");
+    assertThat(changed.with(ConnectionOptions.FETCH_SIZE, 50)).isSameAs(changed);
+    assertThat(changed.with(ConnectionOptions.FETCH_SIZE, null)).isEqualTo(options);
+  }
+
+  @Test
+  void testEquals() {
+    assertThat(ConnectionOptions.of("user", "secret"))
+        .isEqualTo(ConnectionOptions.of("user", "secret"))
+        .hasSameHashCodeAs(ConnectionOptions.of("user", "secret"))
+        .isNotEqualTo(ConnectionOptions.of("user", "other"));
+  }
+
+  @Test
+  void testToProperties() {
+    Properties properties = ConnectionOptions.of("user", "secret")
+        .with(ConnectionOptions.CONNECT_TIMEOUT, Duration.ofSeconds(2))
+        .with(ConnectionOptions.FETCH_SIZE, 10).toProperties();
+
+    assertThat(properties).hasSize(4).containsEntry("user", "user")
+        .containsEntry("password", "secret").containsEntry("connectTimeout", "2000")
+        .containsEntry("fetchSize", "10");
+  }
+
+  @Test
+  void testToString() {
+    assertThat(ConnectionOptions.of("user", "secret"))
+        .hasToString("ConnectionOptions[user=user, password=***]");
+  }
+
+  @Test
+  void testDatabaseDefault() throws XMLDBException {
+    Database database = mock(Database.class, CALLS_REAL_METHODS);
+    Collection collection = mock(Collection.class);
+    Properties info = new Properties();
+    info.setProperty("user", "user");
+    when(database.getCollection("xmldb:db:/", info)).thenReturn(collection);
+
+    assertThat(database.getCollection("xmldb:db:/", ConnectionOptions.of("user", null)))
+        .isSameAs(collection);
+    verify(database).getCollection("xmldb:db:/", info);
+  }
+}
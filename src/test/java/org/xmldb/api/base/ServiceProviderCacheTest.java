@@ -41,16 +41,26 @@ package org.xmldb.api.base;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.xmldb.api.base.ErrorCodes.NOT_IMPLEMENTED;
 import static org.xmldb.api.base.ErrorCodes.NO_SUCH_SERVICE;
+import static org.xmldb.api.base.ErrorCodes.VENDOR_ERROR;
+import static org.xmldb.api.base.ServiceProviderCache.Scope.PER_CALL;
+import static org.xmldb.api.base.ServiceProviderCache.Scope.PER_THREAD;
+import static org.xmldb.api.base.ServiceProviderCache.Scope.SINGLETON;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoSettings;
+import org.xmldb.api.base.ServiceProviderCache.ServiceStatistics;
 import org.xmldb.api.modules.CollectionManagementService;
 import org.xmldb.api.modules.XPathQueryService;
 import org.xmldb.api.modules.XQueryService;
@@ -125,6 +135,234 @@ class ServiceProviderCacheTest {
         });
   }
 
+  @Test
+  void testResolvedOnce() throws XMLDBException {
+    when(combinedQueryServiceProvider.get()).thenReturn(combinedQueryService);
+    for (int i = 0; i < 3; i++) {
+      assertThat(cache.getService(XQueryService.class)).isEqualTo(combinedQueryService);
+      assertThat(cache.findService(UserPrincipalLookupService.class)).isEmpty();
+      assertThat(cache.hasService(UserPrincipalLookupService.class)).isFalse();
+    }
+    verify(combinedQueryServiceProvider, times(3)).get();
+  }
+
+  @Test
+  void testGetServiceNullInstance() {
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> cache.getService(CollectionManagementService.class))
+        .satisfies(e -> assertThat(e.errorCode).isEqualTo(NO_SUCH_SERVICE));
+  }
+
+  @Test
+  void testScopePerCall() throws XMLDBException {
+    cache = ServiceProviderCache.withRegistered(registry -> registry
+        .add(CollectionManagementService.class, collectionManagementServiceSupplier, PER_CALL));
+    when(collectionManagementServiceSupplier.get()).thenReturn(collectionManagementService);
+
+    assertThat(cache.getService(CollectionManagementService.class))
+        .isEqualTo(collectionManagementService);
+    assertThat(cache.getService(CollectionManagementService.class))
+        .isEqualTo(collectionManagementService);
+    verify(collectionManagementServiceSupplier, times(2)).get();
+  }
+
+  @Test
+  void testScopeSingleton() throws Exception {
+    cache = ServiceProviderCache.withRegistered(registry -> registry
+        .add(CollectionManagementService.class, collectionManagementServiceSupplier, SINGLETON));
+    when(collectionManagementServiceSupplier.get()).thenReturn(collectionManagementService);
+
+    assertThat(cache.getService(CollectionManagementService.class))
+        .isEqualTo(collectionManagementService);
+    assertThat(cache.getService(CollectionManagementService.class))
+        .isEqualTo(collectionManagementService);
+    CompletableFuture
+        .runAsync(() -> assertThat(cache.findService(CollectionManagementService.class))
+            .contains(collectionManagementService))
+        .get();
+    verify(collectionManagementServiceSupplier).get();
+  }
+
+  @Test
+  void testScopePerThread() throws Exception {
+    cache = ServiceProviderCache.withRegistered(registry -> registry
+        .add(CollectionManagementService.class, collectionManagementServiceSupplier, PER_THREAD));
+    when(collectionManagementServiceSupplier.get()).thenReturn(collectionManagementService);
+
+    assertThat(cache.getService(CollectionManagementService.class))
+        .isEqualTo(collectionManagementService);
+    assertThat(cache.getService(CollectionManagementService.class))
+        .isEqualTo(collectionManagementService);
+    verify(collectionManagementServiceSupplier).get();
+
+    CompletableFuture
+        .runAsync(() -> assertThat(cache.findService(CollectionManagementService.class))
+            .contains(collectionManagementService))
+        .get();
+    verify(collectionManagementServiceSupplier, times(2)).get();
+  }
+
+  @Test
+  void testRemoveThreadInstances() throws XMLDBException {
+    cache.removeThreadInstances();
+    cache = ServiceProviderCache.withRegistered(registry -> registry
+        .add(CollectionManagementService.class, collectionManagementServiceSupplier, PER_THREAD));
+    when(collectionManagementServiceSupplier.get()).thenReturn(collectionManagementService);
+
+    cache.getService(CollectionManagementService.class);
+    cache.removeThreadInstances();
+    cache.getService(CollectionManagementService.class);
+    cache.getService(CollectionManagementService.class);
+
+    verify(collectionManagementServiceSupplier, times(2)).get();
+  }
+
+  @Test
+  void testBorrowService() throws XMLDBException {
+    cache = ServiceProviderCache.withRegistered(
+        registry -> registry.add(XQueryService.class, combinedQueryServiceProvider, PER_CALL));
+    when(combinedQueryServiceProvider.get()).thenReturn(combinedQueryService);
+
+    try (ServiceLease<XQueryService> lease = cache.borrowService(XQueryService.class)) {
+      assertThat(lease.service()).isEqualTo(combinedQueryService);
+    }
+    try (ServiceLease<XQueryService> lease = cache.borrowService(XQueryService.class)) {
+      assertThat(lease.service()).isEqualTo(combinedQueryService);
+    }
+
+    verify(combinedQueryServiceProvider).get();
+    verify(combinedQueryService, times(4)).clearNamespaces();
+    verify(combinedQueryService, times(2)).clearVariables();
+  }
+
+  @Test
+  void testBorrowServiceResetFailed() throws XMLDBException {
+    cache = ServiceProviderCache.withRegistered(
+        registry -> registry.add(XQueryService.class, combinedQueryServiceProvider, PER_CALL));
+    when(combinedQueryServiceProvider.get()).thenReturn(combinedQueryService);
+    doThrow(new XMLDBException(NOT_IMPLEMENTED)).when(combinedQueryService).clearVariables();
+
+    cache.borrowService(XQueryService.class).close();
+    cache.borrowService(XQueryService.class).close();
+    cache.borrowService(XQueryService.class).close();
+
+    verify(combinedQueryServiceProvider, times(3)).get();
+    verify(combinedQueryService).clearNamespaces();
+    verify(combinedQueryService).clearVariables();
+  }
+
+  @Test
+  void testBorrowServiceResetFailedOnce() throws XMLDBException {
+    cache = ServiceProviderCache.withRegistered(
+        registry -> registry.add(XQueryService.class, combinedQueryServiceProvider, PER_CALL));
+    when(combinedQueryServiceProvider.get()).thenReturn(combinedQueryService);
+    doThrow(new XMLDBException(VENDOR_ERROR)).doNothing().when(combinedQueryService)
+        .clearVariables();
+
+    cache.borrowService(XQueryService.class).close();
+    cache.borrowService(XQueryService.class).close();
+    cache.borrowService(XQueryService.class).close();
+
+    verify(combinedQueryServiceProvider, times(2)).get();
+    verify(combinedQueryService, times(3)).clearVariables();
+  }
+
+  @Test
+  void testBorrowServiceClosed() throws XMLDBException {
+    cache = ServiceProviderCache.withRegistered(
+        registry -> registry.add(XQueryService.class, combinedQueryServiceProvider, PER_CALL));
+    when(combinedQueryServiceProvider.get()).thenReturn(combinedQueryService);
+    ServiceLease<XQueryService> lease = cache.borrowService(XQueryService.class);
+
+    lease.close();
+    lease.close();
+
+    assertThatExceptionOfType(IllegalStateException.class).isThrownBy(lease::service);
+    verify(combinedQueryService).clearVariables();
+  }
+
+  @Test
+  void testBorrowServiceUnscoped() throws XMLDBException {
+    when(combinedQueryServiceProvider.get()).thenReturn(combinedQueryService);
+
+    cache.borrowService(XQueryService.class).close();
+    cache.borrowService(XQueryService.class).close();
+
+    verify(combinedQueryServiceProvider, times(2)).get();
+    verifyNoInteractions(combinedQueryService);
+  }
+
+  @Test
+  void testBorrowServiceSingleton() throws XMLDBException {
+    cache = ServiceProviderCache.withRegistered(
+        registry -> registry.add(XQueryService.class, combinedQueryServiceProvider, SINGLETON));
+    when(combinedQueryServiceProvider.get()).thenReturn(combinedQueryService);
+
+    try (ServiceLease<XQueryService> lease = cache.borrowService(XQueryService.class)) {
+      assertThat(lease.service()).isEqualTo(combinedQueryService);
+    }
+
+    verifyNoInteractions(combinedQueryService);
+  }
+
+  @Test
+  void testBorrowServiceUnknown() {
+    assertThatExceptionOfType(XMLDBException.class)
+        .isThrownBy(() -> cache.borrowService(UserPrincipalLookupService.class))
+        .satisfies(e -> assertThat(e.errorCode).isEqualTo(NO_SUCH_SERVICE));
+  }
+
+  @Test
+  void testStatistics() throws XMLDBException {
+    cache = ServiceProviderCache.withStatistics(registry -> {
+      registry.add(CollectionManagementService.class, collectionManagementServiceSupplier);
+      registry.add(XQueryService.class, combinedQueryServiceProvider, SINGLETON);
+    });
+    when(collectionManagementServiceSupplier.get()).thenReturn(collectionManagementService);
+    when(combinedQueryServiceProvider.get()).thenReturn(combinedQueryService);
+
+    cache.getService(CollectionManagementService.class);
+    cache.getService(CollectionManagementService.class);
+    cache.getService(XQueryService.class);
+    cache.getService(XQueryService.class);
+    cache.getService(XQueryService.class);
+    cache.findService(UserPrincipalLookupService.class);
+
+    assertThat(cache.getStatistics()).satisfies(statistics -> {
+      assertThat(statistics.misses()).isEqualTo(1);
+      assertThat(statistics.services()).satisfiesExactly(service -> {
+        assertThat(service.serviceType()).isEqualTo(CollectionManagementService.class);
+        assertThat(service.lookups()).isEqualTo(2);
+        assertThat(service.instances()).isEqualTo(2);
+        assertThat(service.instanceNanos()).isNotNegative();
+      }, service -> {
+        assertThat(service.serviceType()).isEqualTo(XQueryService.class);
+        assertThat(service.lookups()).isEqualTo(3);
+        assertThat(service.instances()).isEqualTo(1);
+      });
+    });
+  }
+
+  @Test
+  void testStatisticsDisabled() throws XMLDBException {
+    when(collectionManagementServiceSupplier.get()).thenReturn(collectionManagementService);
+    cache.getService(CollectionManagementService.class);
+    cache.findService(UserPrincipalLookupService.class);
+
+    assertThat(cache.getStatistics()).satisfies(statistics -> {
+      assertThat(statistics.misses()).isZero();
+      assertThat(statistics.services()).isEmpty();
+    });
+  }
+
+  @Test
+  void testServiceStatistics() {
+    assertThat(new ServiceStatistics(XQueryService.class, 3, 2, 100).averageInstanceNanos())
+        .isEqualTo(50);
+    assertThat(new ServiceStatistics(XQueryService.class, 3, 0, 0).averageInstanceNanos())
+        .isZero();
+  }
+
   interface CombinedQueryService extends XPathQueryService, XQueryService {
   }
 }
@@ -47,6 +47,8 @@ import static org.xmldb.api.base.ErrorCodes.INVALID_RESOURCE;
 import static org.xmldb.api.base.ErrorCodes.INVALID_URI;
 import static org.xmldb.api.base.ErrorCodes.NOT_IMPLEMENTED;
 import static org.xmldb.api.base.ErrorCodes.NO_SUCH_DATABASE;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_RESOURCE;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_SERVICE;
 import static org.xmldb.api.base.ErrorCodes.PERMISSION_DENIED;
 import static org.xmldb.api.base.ErrorCodes.UNKNOWN_ERROR;
 
@@ -146,6 +148,41 @@ class XMLDBExceptionTest {
     });
   }
 
+  @ParameterizedTest
+  @CsvSource({"100, true", "300, true", "400, true", "0, false", "1, false", "200, false"})
+  void testStacklessErrorCodes(final int errorCode, final boolean stackless) {
+    XMLDBException ex = new XMLDBException(errorCode);
+    assertThat(ex.getStackTrace().length == 0).isEqualTo(stackless);
+  }
+
+  @Test
+  void testSetStacklessErrorCodes() {
+    int[] defaults = XMLDBException.getStacklessErrorCodes();
+    try {
+      XMLDBException.setStacklessErrorCodes(COLLECTION_CLOSED);
+
+      assertThat(XMLDBException.getStacklessErrorCodes()).containsExactly(COLLECTION_CLOSED);
+      assertThat(new XMLDBException(COLLECTION_CLOSED).getStackTrace()).isEmpty();
+      assertThat(new XMLDBException(NO_SUCH_DATABASE).getStackTrace()).isNotEmpty();
+    } finally {
+      XMLDBException.setStacklessErrorCodes(defaults);
+    }
+    assertThat(XMLDBException.getStacklessErrorCodes()).containsExactly(NO_SUCH_SERVICE,
+        NO_SUCH_RESOURCE, NO_SUCH_DATABASE);
+  }
+
+  @Test
+  void testStackless() {
+    XMLDBException ex = XMLDBException.stackless(INVALID_URI, null);
+    ex.addSuppressed(new IOException("suppressed"));
+
+    assertThat(ex).hasMessage("Invalid URI").hasNoCause().satisfies(e -> {
+      assertThat(e.errorCode).isEqualTo(INVALID_URI);
+      assertThat(e.getStackTrace()).isEmpty();
+      assertThat(e.getSuppressed()).isEmpty();
+    });
+  }
+
   @ParameterizedTest
   @CsvSource(textBlock = """
       -1,  Unknown error code: -1
@@ -0,0 +1,100 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.base;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class XmldbUriTest {
+  @ParameterizedTest
+  @CsvSource(nullValues = "null", textBlock = """
+      xmldb:dbName://host:1234/db/sub, xmldb, dbName, host:1234, /db/sub,  xmldb:dbName:
+      xmldb:dbName://host:1234,        xmldb, dbName, host:1234, '',       xmldb:dbName:
+      xmldb:dbName:///db,              xmldb, dbName, '',        /db,      xmldb:dbName:
+      xmldb:dbName:collection,         xmldb, dbName, null,      collection, xmldb:dbName:
+      xmldb:dbName:,                   xmldb, dbName, null,      '',       xmldb:dbName:
+      xmldb::collection,               xmldb, null,   null,      null,     null
+      xmldb:dbName,                    xmldb, null,   null,      null,     null
+      other:dbName:collection,         other, null,   null,      null,     null
+      collection,                      null,  null,   null,      null,     null
+      """)
+  void testParse(String uri, String scheme, String driverId, String authority, String path,
+      String prefix) {
+    XmldbUri parsed = XmldbUri.of(uri);
+
+    assertThat(parsed.scheme()).isEqualTo(scheme);
+    assertThat(parsed.driverId()).isEqualTo(driverId);
+    assertThat(parsed.authority()).isEqualTo(authority);
+    assertThat(parsed.path()).isEqualTo(path);
+    assertThat(parsed.prefix()).isEqualTo(prefix);
+    assertThat(parsed.isXmldbUri()).isEqualTo(driverId != null);
+    assertThat(parsed).hasToString(uri);
+  }
+
+  @Test
+  void testInterned() {
+    XmldbUri uri = XmldbUri.of("xmldb:dbName:interned");
+
+    assertThat(XmldbUri.of(new String("xmldb:dbName:interned"))).isSameAs(uri);
+    assertThat(uri).isEqualTo(XmldbUri.of("xmldb:dbName:interned"))
+        .isNotEqualTo(XmldbUri.of("xmldb:dbName:other"));
+  }
+
+  @Test
+  void testDatabaseDefaults() throws XMLDBException {
+    Database database = mock(Database.class, CALLS_REAL_METHODS);
+    Collection collection = mock(Collection.class);
+    XmldbUri uri = XmldbUri.of("xmldb:dbName:collection");
+    when(database.acceptsURI("xmldb:dbName:collection")).thenReturn(true);
+    when(database.getCollection("xmldb:dbName:collection", ConnectionOptions.EMPTY.toProperties()))
+        .thenReturn(collection);
+
+    assertThat(database.acceptsURI(uri)).isTrue();
+    assertThat(database.getCollection(uri, ConnectionOptions.EMPTY)).isSameAs(collection);
+    verify(database).getCollection("xmldb:dbName:collection", ConnectionOptions.EMPTY);
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * The XML:DB Initiative Software License, Version 1.0
+ *
+ * Copyright (c) 2000-2026 The XML:DB Initiative. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions
+ * and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * 3. The end-user documentation included with the redistribution, if any, must include the
+ * following acknowledgment: "This product includes software developed by the XML:DB Initiative
+ * (http://www.xmldb.org/)." Alternately, this acknowledgment may appear in the software itself, if
+ * and wherever such third-party acknowledgments normally appear.
+ *
+ * 4. The name "XML:DB Initiative" must not be used to endorse or promote products derived from this
+ * software without prior written permission. For written permission, please contact info@xmldb.org.
+ *
+ * 5. Products derived from this software may not be called "XML:DB", nor may "XML:DB" appear in
+ * their name, without prior written permission of the XML:DB Initiative.
+ *
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE APACHE SOFTWARE FOUNDATION OR ITS CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+ * BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * =================================================================================================
+ * This software consists of voluntary contributions made by many individuals on behalf of the
+ * XML:DB Initiative. For more information on the XML:DB Initiative, please see
+ * <https://github.com/xmldb-org/>
+ */
+package org.xmldb.api.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.xmldb.api.base.ErrorCodes.NO_SUCH_RESOURCE;
+import static org.xmldb.api.base.ErrorCodes.VENDOR_ERROR;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.xmldb.api.base.AsyncCollection;
+import org.xmldb.api.base.Collection;
+import org.xmldb.api.base.Resource;
+import org.xmldb.api.base.ResourceSet;
+import org.xmldb.api.base.StoreResult;
+import org.xmldb.api.base.XMLDBException;
+import org.xmldb.api.modules.TransactionService;
+import org.xmldb.api.modules.XQueryService;
+
+@ExtendWith(MockitoExtension.class)
+class JfrCollectionTest {
+  private static final String URI = "xmldb:test:///db";
+
+  @Mock
+  Collection collection;
+  @Mock
+  Collection child;
+  @Mock
+  AsyncCollection asyncCollection;
+  @Mock
+  Resource resource;
+  @Mock
+  Resource otherResource;
+  @Mock
+  ResourceSet resourceSet;
+  @Mock
+  XQueryService queryService;
+  @Mock
+  TransactionService transactionService;
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testWrap() {
+    Collection wrapped = JfrCollection.wrap(collection, URI);
+
+    assertThat(JfrCollection.wrap(null, URI)).isNull();
+    assertThat(JfrCollection.wrap(wrapped, URI)).isSameAs(wrapped);
+    assertThat(JfrCollection.unwrap(wrapped)).isSameAs(collection);
+  }
+
+  @Test
+  void testResourceEvents() throws XMLDBException, IOException {
+    XMLDBException error = new XMLDBException(NO_SUCH_RESOURCE);
+    when(collection.getResource("res1")).thenReturn(resource);
+    when(collection.getResource("res2")).thenThrow(error);
+    when(resource.getId()).thenReturn("res1");
+    Collection wrapped = JfrCollection.wrap(collection, URI);
+
+    List<RecordedEvent> events = record(() -> {
+      assertThat(wrapped.getResource("res1")).isSameAs(resource);
+      assertThatExceptionOfType(XMLDBException.class)
+          .isThrownBy(() -> wrapped.getResource("res2"))
+          .satisfies(e -> assertThat(e).isSameAs(error));
+      wrapped.storeResource(resource);
+    });
+
+    verify(collection).storeResource(resource);
+    assertThat(events).extracting(event -> event.getEventType().getName(),
+        event -> event.getString("uri"), event -> event.getString("resourceId"),
+        event -> event.getLong("resultSize"), event -> event.getInt("errorCode"))
+        .containsExactly(tuple("org.xmldb.ResourceGet", URI, "res1", 1L, -1),
+            tuple("org.xmldb.ResourceGet", URI, "res2", 0L, NO_SUCH_RESOURCE),
+            tuple("org.xmldb.ResourceStore", URI, "res1", 1L, -1));
+  }
+
+  @Test
+  void testStoreResourcesEvent() throws XMLDBException, IOException {
+    XMLDBException error = new XMLDBException(VENDOR_ERROR);
+    List<Resource> resources = List.of(resource, otherResource);
+    when(collection.storeResources(resources)).thenReturn(
+        List.of(StoreResult.success(resource), StoreResult.failure(otherResource, error)));
+    Collection wrapped = JfrCollection.wrap(collection, URI);
+
+    List<RecordedEvent> events = record(() -> assertThat(wrapped.storeResources(resources))
+        .extracting(StoreResult::isSuccess).containsExactly(true, false));
+
+    verify(collection).storeResources(resources);
+    assertThat(events).extracting(event -> event.getEventType().getName(),
+        event -> event.getString("resourceId"), event -> event.getLong("resultSize"))
+        .containsExactly(tuple("org.xmldb.ResourceStore", null, 1L));
+  }
+
+  @Test
+  void testGetResourcesEvent() throws XMLDBException, IOException {
+    List<String> ids = List.of("res1", "res2");
+    when(collection.getResources(ids)).thenReturn(List.of(Optional.of(resource), Optional.empty()));
+    Collection wrapped = JfrCollection.wrap(collection, URI);
+
+    List<RecordedEvent> events = record(() -> assertThat(wrapped.getResources(ids))
+        .containsExactly(Optional.of(resource), Optional.empty()));
+
+    verify(collection).getResources(ids);
+    assertThat(events).extracting(event -> event.getEventType().getName(),
+        event -> event.getString("resourceId"), event -> event.getLong("resultSize"))
+        .containsExactly(tuple("org.xmldb.ResourceGet", null, 1L));
+  }
+
+  @Test
+  void testAsyncEvents() throws XMLDBException, IOException {
+    Executor executor = Runnable::run;
+    when(collection.async(executor)).thenReturn(asyncCollection);
+    when(asyncCollection.getResource("res1"))
+        .thenReturn(CompletableFuture.completedFuture(resource));
+    AsyncCollection wrapped = JfrCollection.wrap(collection, URI).async(executor);
+
+    List<RecordedEvent> events = record(() -> assertThat(wrapped.getResource("res1"))
+        .isCompletedWithValue(resource));
+
+    assertThat(JfrCollection.unwrap(wrapped.collection())).isSameAs(collection);
+    assertThat(events).extracting(event -> event.getEventType().getName(),
+        event -> event.getString("resourceId"), event -> event.getLong("resultSize"))
+        .containsExactly(tuple("org.xmldb.ResourceGet", "res1", 1L));
+  }
+
+  @Test
+  void testServiceEvents() throws XMLDBException, IOException {
+    when(collection.getChildCollection("child")).thenReturn(child);
+    when(child.getService(XQueryService.class)).thenReturn(queryService);
+    when(child.getService(TransactionService.class)).thenReturn(transactionService);
+    when(queryService.query("//a")).thenReturn(resourceSet);
+    when(resourceSet.getSize()).thenReturn(3L);
+    Collection wrapped = JfrCollection.wrap(collection, URI).getChildCollection("child");
+
+    List<RecordedEvent> events = record(() -> {
+      wrapped.getService(TransactionService.class).begin();
+      assertThat(wrapped.getService(XQueryService.class).query("//a")).isSameAs(resourceSet);
+      wrapped.getService(TransactionService.class).commit();
+    });
+
+    verify(transactionService).begin();
+    verify(transactionService).commit();
+    assertThat(events).extracting(event -> event.getEventType().getName(),
+        event -> event.getString("uri"), event -> event.getLong("resultSize"))
+        .containsExactly(tuple("org.xmldb.Transaction", URI + "/child", 0L),
+            tuple("org.xmldb.XQuery", URI + "/child", 3L),
+            tuple("org.xmldb.Transaction", URI + "/child", 0L));
+    assertThat(events)
+        .extracting(event -> event.hasField("operation") ? event.getString("operation") : null)
+        .containsExactly("begin", null, "commit");
+  }
+
+  @Test
+  void testDisabledByDefault() throws XMLDBException {
+    when(collection.getResource("res1")).thenReturn(resource);
+
+    try (Recording recording = new Recording()) {
+      recording.start();
+      assertThat(JfrCollection.wrap(collection, URI).getResource("res1")).isSameAs(resource);
+      assertThat(new ResourceGetEvent().isEnabled()).isFalse();
+    }
+  }
+
+  private List<RecordedEvent> record(Action action) throws XMLDBException, IOException {
+    try (Recording recording = new Recording()) {
+      for (Class<? extends XmldbEvent> type : List.of(ResourceGetEvent.class,
+          ResourceStoreEvent.class, XQueryEvent.class, TransactionEvent.class)) {
+        recording.enable(type).withoutThreshold();
+      }
+      recording.start();
+      action.run();
+      recording.stop();
+      Path file = tempDir.resolve("recording.jfr");
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().startsWith("org.xmldb."))
+          .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime())).toList();
+    }
+  }
+
+  @FunctionalInterface
+  interface Action {
+    void run() throws XMLDBException;
+  }
+}